@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.staxnav.Axis;
+import org.staxnav.Naming;
+import org.staxnav.PathQuery;
+import org.staxnav.StaxCursor;
+import org.staxnav.StaxCursorImpl;
+import org.staxnav.StaxNavigator;
+import org.staxnav.StaxNavigatorImpl;
+import org.staxnav.ValueType;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Benchmarks the navigation operations of {@link StaxNavigatorImpl}. Each benchmark parses a whole generated
+ * document and the figures are normalized per element thanks to {@link OperationsPerInvocation}: the throughput is
+ * expressed in elements per second and the <code>gc.alloc.rate.norm</code> metric of the GC profiler is the number
+ * of bytes allocated per element.</p>
+ *
+ * <p>The parsing of the document is part of the measure as the navigator builds its elements while it navigates.</p>
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NavigatorBenchmark
+{
+
+   /** . */
+   private static final String RECORD = "record";
+
+   /** . */
+   private static final String FIELD = "field";
+
+   /** . */
+   private static final String MISSING = "missing";
+
+   /** . */
+   private static final PathQuery QUERY = PathQuery.compile("/root/record//field");
+
+   /** . */
+   private static final Naming<String> NAMING = new Naming.Local();
+
+   @Param
+   public Provider provider;
+
+   @Param
+   public Shape shape;
+
+   /** . */
+   private XMLInputFactory factory;
+
+   /** . */
+   private byte[] document;
+
+   /** . */
+   private Set<String> names;
+
+   /** . */
+   private ExecutorService executor;
+
+   @Setup
+   public void setUp() throws Exception
+   {
+      factory = provider.create();
+      document = shape.generate();
+      names = new HashSet<String>();
+      names.add("root");
+      names.add("record");
+      names.add("field");
+      names.add("level");
+      names.add("text");
+      executor = Executors.newCachedThreadPool();
+   }
+
+   @TearDown
+   public void tearDown()
+   {
+      executor.shutdownNow();
+   }
+
+   private StaxNavigator<String> navigator() throws XMLStreamException
+   {
+      return new StaxNavigatorImpl<String>(NAMING, factory.createXMLStreamReader(new ByteArrayInputStream(document)));
+   }
+
+   /**
+    * Descends along the first child of each record.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int child() throws Exception
+   {
+      StaxNavigator<String> navigator = navigator();
+      int count = 0;
+      if (navigator.child(RECORD))
+      {
+         do
+         {
+            while (navigator.child() != null)
+            {
+               count++;
+            }
+         }
+         while (navigator.navigate(Axis.FOLLOWING, RECORD));
+      }
+      return count;
+   }
+
+   /**
+    * Hops from record to record.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int sibling() throws Exception
+   {
+      StaxNavigator<String> navigator = navigator();
+      int count = 0;
+      if (navigator.child() != null)
+      {
+         do
+         {
+            count++;
+         }
+         while (navigator.sibling() != null);
+      }
+      return count;
+   }
+
+   /**
+    * Hops from record to record skipping the record subtrees.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int siblingSkipping() throws Exception
+   {
+      StaxNavigatorImpl<String> navigator = (StaxNavigatorImpl<String>)navigator();
+      navigator.setSubtreeSkipping(true);
+      int count = 0;
+      if (navigator.child() != null)
+      {
+         do
+         {
+            count++;
+         }
+         while (navigator.sibling() != null);
+      }
+      return count;
+   }
+
+   /**
+    * Visits every element with a set of names.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int nextSet() throws Exception
+   {
+      StaxNavigator<String> navigator = navigator();
+      int count = 0;
+      while (navigator.next(names) != null)
+      {
+         count++;
+      }
+      return count;
+   }
+
+   /**
+    * Reads the content of every element with the elements read by another thread.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int pipeline() throws Exception
+   {
+      StaxNavigator<String> navigator = StaxNavigatorImpl.pipeline(NAMING, factory.createXMLStreamReader(new ByteArrayInputStream(document)), 256, executor);
+      int count = 0;
+      while (navigator.next() != null)
+      {
+         String content = navigator.getContent();
+         if (content != null)
+         {
+            count += content.length();
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Finds the first field descendant of each record.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int descendant() throws Exception
+   {
+      StaxNavigator<String> navigator = navigator();
+      int count = 0;
+      if (navigator.child(RECORD))
+      {
+         for (StaxNavigator<String> record : navigator.fork(RECORD))
+         {
+            count += record.descendant(FIELD);
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Selects the fields of the records with a compiled path query.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int query() throws Exception
+   {
+      StaxNavigator<String> navigator = navigator();
+      int count = 0;
+      for (StaxNavigator<String> field : QUERY.select(navigator))
+      {
+         count += field.getDepth();
+      }
+      return count;
+   }
+
+   /**
+    * Looks for an element that does not exist, scanning the whole document.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public boolean find() throws Exception
+   {
+      StaxNavigator<String> navigator = navigator();
+      return navigator.find(MISSING);
+   }
+
+   /**
+    * Forks every field of the document.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int fork() throws Exception
+   {
+      StaxNavigator<String> navigator = navigator();
+      int count = 0;
+      for (StaxNavigator<String> field : navigator.fork(Axis.FOLLOWING, FIELD))
+      {
+         count += field.getDepth();
+      }
+      return count;
+   }
+
+   /**
+    * Reads the content of every element.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int getContent() throws Exception
+   {
+      StaxNavigator<String> navigator = navigator();
+      int count = 0;
+      while (navigator.next() != null)
+      {
+         String content = navigator.getContent();
+         if (content != null)
+         {
+            count += content.length();
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Reads the content of every element with a cursor.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int cursor() throws Exception
+   {
+      StaxCursor<String> cursor = new StaxCursorImpl<String>(NAMING, factory.createXMLStreamReader(new ByteArrayInputStream(document)));
+      int count = 0;
+      while (cursor.next() != null)
+      {
+         String content = cursor.getContent();
+         if (content != null)
+         {
+            count += content.length();
+         }
+      }
+      return count;
+   }
+
+   /**
+    * Parses the integer content of every field.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int parseContent() throws Exception
+   {
+      StaxNavigator<String> navigator = navigator();
+      int count = 0;
+      if (navigator.find(FIELD))
+      {
+         do
+         {
+            count += navigator.parseContent(ValueType.INTEGER);
+         }
+         while (navigator.navigate(Axis.FOLLOWING, FIELD));
+      }
+      return count;
+   }
+
+   /**
+    * Parses the integer content of every field without boxing.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int getIntContent() throws Exception
+   {
+      StaxNavigator<String> navigator = navigator();
+      int count = 0;
+      if (navigator.find(FIELD))
+      {
+         do
+         {
+            count += navigator.getIntContent();
+         }
+         while (navigator.navigate(Axis.FOLLOWING, FIELD));
+      }
+      return count;
+   }
+}
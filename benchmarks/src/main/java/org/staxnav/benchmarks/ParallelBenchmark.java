@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.staxnav.Naming;
+import org.staxnav.ParallelParser;
+import org.staxnav.Parser;
+import org.staxnav.StaxNavException;
+import org.staxnav.StaxNavigator;
+import org.staxnav.StaxNavigatorImpl;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link ParallelParser} with a sequential parsing of the records of a document. The handler reads
+ * the content of every element of a record. The figures are normalized per element like the
+ * {@link NavigatorBenchmark} ones, the throughput of the parallel parser is expected to grow with the number of
+ * threads up to the number of available cores.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelBenchmark
+{
+
+   /** . */
+   private static final Naming<String> NAMING = new Naming.Local();
+
+   /** . */
+   private static final Parser<String> HANDLER = new Parser<String>()
+   {
+      public void parse(StaxNavigator<String> navigator) throws StaxNavException
+      {
+         do
+         {
+            navigator.getContent();
+         }
+         while (navigator.next() != null);
+      }
+   };
+
+   @Param({"WOODSTOX"})
+   public Provider provider;
+
+   @Param({"WIDE", "TEXT"})
+   public Shape shape;
+
+   @Param({"1", "2", "4"})
+   public int threads;
+
+   /** . */
+   private XMLInputFactory factory;
+
+   /** . */
+   private byte[] document;
+
+   /** . */
+   private ExecutorService executor;
+
+   /** . */
+   private ParallelParser<String> parser;
+
+   @Setup
+   public void setUp() throws Exception
+   {
+      factory = provider.create();
+      document = shape.generate();
+      executor = Executors.newFixedThreadPool(threads);
+      parser = new ParallelParser<String>(NAMING, factory, executor);
+      parser.setChunkSize(document.length / (threads * 4));
+   }
+
+   @TearDown
+   public void tearDown()
+   {
+      executor.shutdown();
+   }
+
+   /**
+    * Parses the records with the parallel parser.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int parallel() throws Exception
+   {
+      return parser.parse(document, HANDLER);
+   }
+
+   /**
+    * Parses the records sequentially with a single navigator.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int sequential() throws Exception
+   {
+      StaxNavigator<String> navigator = new StaxNavigatorImpl<String>(NAMING, factory.createXMLStreamReader(new ByteArrayInputStream(document)));
+      int count = 0;
+      if (navigator.child() != null)
+      {
+         do
+         {
+            HANDLER.parse(navigator.fork());
+            count++;
+         }
+         while (navigator.sibling() != null);
+      }
+      return count;
+   }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav.benchmarks;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+
+import javax.xml.stream.XMLInputFactory;
+
+/**
+ * The StAX implementations the benchmarks are run against. The factories are instantiated directly so the
+ * <code>javax.xml.stream.XMLInputFactory</code> lookup does not interfere with the choice.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public enum Provider
+{
+
+   /**
+    * The implementation bundled with the JDK.
+    */
+   SJSXP
+   {
+      @Override
+      XMLInputFactory create() throws Exception
+      {
+         try
+         {
+            // Java 9 and above
+            return (XMLInputFactory)XMLInputFactory.class.getMethod("newDefaultFactory").invoke(null);
+         }
+         catch (NoSuchMethodException e)
+         {
+            return (XMLInputFactory)Class.forName("com.sun.xml.internal.stream.XMLInputFactoryImpl").newInstance();
+         }
+      }
+   },
+
+   WOODSTOX
+   {
+      @Override
+      XMLInputFactory create() throws Exception
+      {
+         return new WstxInputFactory();
+      }
+   },
+
+   AALTO
+   {
+      @Override
+      XMLInputFactory create() throws Exception
+      {
+         return new InputFactoryImpl();
+      }
+   };
+
+   abstract XMLInputFactory create() throws Exception;
+
+}
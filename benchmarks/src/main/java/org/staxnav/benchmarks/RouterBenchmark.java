@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.staxnav.Naming;
+import org.staxnav.Parser;
+import org.staxnav.PathRouter;
+import org.staxnav.StaxNavException;
+import org.staxnav.StaxNavigator;
+import org.staxnav.StaxNavigatorImpl;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link PathRouter} dispatch with a growing number of registered paths: only one of the paths
+ * selects elements of the document, the others do not match but share the root step with it. The figures are
+ * normalized per element like the {@link NavigatorBenchmark} ones.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouterBenchmark
+{
+
+   /** . */
+   private static final Naming<String> NAMING = new Naming.Local();
+
+   @Param({"WOODSTOX"})
+   public Provider provider;
+
+   @Param({"WIDE"})
+   public Shape shape;
+
+   @Param({"1", "10", "50"})
+   public int paths;
+
+   /** . */
+   private XMLInputFactory factory;
+
+   /** . */
+   private byte[] document;
+
+   /** . */
+   private PathRouter<String> router;
+
+   @Setup
+   public void setUp() throws Exception
+   {
+      factory = provider.create();
+      document = shape.generate();
+      router = new PathRouter<String>();
+      Parser<String> handler = new Parser<String>()
+      {
+         public void parse(StaxNavigator<String> navigator) throws StaxNavException
+         {
+         }
+      };
+      router.register("/root/record/field", handler);
+      for (int i = 1;i < paths;i++)
+      {
+         router.register("/root/record/missing" + i, handler);
+      }
+   }
+
+   /**
+    * Routes the whole document.
+    */
+   @Benchmark
+   @OperationsPerInvocation(Shape.ELEMENTS)
+   public int route() throws Exception
+   {
+      StaxNavigator<String> navigator = new StaxNavigatorImpl<String>(NAMING, factory.createXMLStreamReader(new ByteArrayInputStream(document)));
+      return router.route(navigator);
+   }
+}
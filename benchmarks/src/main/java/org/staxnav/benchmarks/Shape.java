@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav.benchmarks;
+
+import java.io.UnsupportedEncodingException;
+
+/**
+ * <p>The shapes of the generated benchmark documents. Each document is a <code>root</code> element containing
+ * <code>record</code> elements, the shape determines what the records look like. Every shape generates exactly
+ * {@link #ELEMENTS} elements so that the benchmarks can report their figures per element.</p>
+ *
+ * <p>The element names are:</p>
+ * <ul>
+ *    <li><code>root</code>: the document element</li>
+ *    <li><code>record</code>: the children of the document element</li>
+ *    <li><code>field</code>: a leaf element with an integer content, each record has at least one</li>
+ *    <li><code>level</code>: the nested elements of the deep shape</li>
+ *    <li><code>text</code>: a leaf element with a large text content</li>
+ * </ul>
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public enum Shape
+{
+
+   /**
+    * Many small records: <code>record</code> elements with two <code>field</code> children.
+    */
+   WIDE(1365)
+   {
+      @Override
+      void record(StringBuilder sb, int index)
+      {
+         sb.append("<record id=\"").append(index).append("\">");
+         field(sb, index);
+         field(sb, index + 1);
+         sb.append("</record>");
+      }
+   },
+
+   /**
+    * Few deeply nested records: a <code>record</code> element containing a chain of 63 <code>level</code> elements
+    * ending with a <code>field</code> element.
+    */
+   DEEP(63)
+   {
+      @Override
+      void record(StringBuilder sb, int index)
+      {
+         sb.append("<record id=\"").append(index).append("\">");
+         for (int i = 0;i < 63;i++)
+         {
+            sb.append("<level>");
+         }
+         field(sb, index);
+         for (int i = 0;i < 63;i++)
+         {
+            sb.append("</level>");
+         }
+         sb.append("</record>");
+      }
+   },
+
+   /**
+    * Records carrying many attributes, some of them being qualified: a <code>record</code> element with eight
+    * attributes and four <code>field</code> children with three attributes.
+    */
+   ATTRIBUTES(819)
+   {
+      @Override
+      void record(StringBuilder sb, int index)
+      {
+         sb.append("<record id=\"").append(index).
+            append("\" type=\"entry\" status=\"active\" owner=\"staxnav\" created=\"2010-01-01T00:00:00\" version=\"").
+            append(index % 7).
+            append("\" x:origin=\"import\" x:checksum=\"").append(Integer.toHexString(index * 31)).append("\">");
+         for (int i = 0;i < 4;i++)
+         {
+            sb.append("<field name=\"f").append(i).append("\" type=\"int\" x:unit=\"ms\">").append(index + i).append("</field>");
+         }
+         sb.append("</record>");
+      }
+   },
+
+   /**
+    * Records carrying large texts: a <code>record</code> element with five <code>text</code> children and
+    * a <code>field</code> child. The text contains an entity reference so most parsers will report it in several
+    * chunks.
+    */
+   TEXT(585)
+   {
+      @Override
+      void record(StringBuilder sb, int index)
+      {
+         sb.append("<record id=\"").append(index).append("\">");
+         for (int i = 0;i < 5;i++)
+         {
+            sb.append("<text>").append(LOREM).append(" &amp; ").append(LOREM).append("</text>");
+         }
+         field(sb, index);
+         sb.append("</record>");
+      }
+   };
+
+   /** The number of elements of a generated document. */
+   public static final int ELEMENTS = 4096;
+
+   /** . */
+   private static final String LOREM = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod " +
+      "tempor incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud exercitation";
+
+   /** . */
+   private final int records;
+
+   Shape(int records)
+   {
+      this.records = records;
+   }
+
+   abstract void record(StringBuilder sb, int index);
+
+   private static void field(StringBuilder sb, int value)
+   {
+      sb.append("<field>").append(value).append("</field>");
+   }
+
+   /**
+    * Generates the document for this shape.
+    *
+    * @return the UTF-8 encoded document
+    */
+   public byte[] generate()
+   {
+      StringBuilder sb = new StringBuilder();
+      sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+      sb.append("<root xmlns:x=\"urn:staxnav:benchmarks\">\n");
+      for (int i = 0;i < records;i++)
+      {
+         sb.append("  ");
+         record(sb, i);
+         sb.append('\n');
+      }
+      sb.append("</root>\n");
+      try
+      {
+         return sb.toString().getBytes("UTF-8");
+      }
+      catch (UnsupportedEncodingException e)
+      {
+         throw new AssertionError(e);
+      }
+   }
+}
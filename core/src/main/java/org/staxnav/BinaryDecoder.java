@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Decodes chunks of chars to bytes incrementally, the decoded bytes are buffered and written to an output stream.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+abstract class BinaryDecoder
+{
+
+   /** . */
+   private final OutputStream out;
+
+   /** . */
+   private final byte[] buffer;
+
+   /** . */
+   private int position;
+
+   /** . */
+   private int count;
+
+   BinaryDecoder(OutputStream out)
+   {
+      this.out = out;
+      this.buffer = new byte[512];
+      this.position = 0;
+      this.count = 0;
+   }
+
+   /**
+    * Decodes a chunk of chars.
+    *
+    * @param chars the chars
+    * @param offset the chunk offset
+    * @param length the chunk length
+    * @throws IllegalArgumentException if the chars are not valid
+    * @throws IOException any exception thrown by the output stream
+    */
+   abstract void decode(char[] chars, int offset, int length) throws IllegalArgumentException, IOException;
+
+   /**
+    * Decodes a string.
+    *
+    * @param s the string
+    * @throws IllegalArgumentException if the chars are not valid
+    * @throws IOException any exception thrown by the output stream
+    */
+   void decode(String s) throws IllegalArgumentException, IOException
+   {
+      char[] chars = new char[Math.min(s.length(), 1024)];
+      for (int from = 0;from < s.length();from += chars.length)
+      {
+         int to = Math.min(from + chars.length, s.length());
+         s.getChars(from, to, chars, 0);
+         decode(chars, 0, to - from);
+      }
+   }
+
+   /**
+    * Ends the decoding and flushes the buffered bytes.
+    *
+    * @return the number of decoded bytes
+    * @throws IllegalArgumentException if the decoded chars were not complete
+    * @throws IOException any exception thrown by the output stream
+    */
+   int finish() throws IllegalArgumentException, IOException
+   {
+      flush();
+      return count;
+   }
+
+   final void write(int b) throws IOException
+   {
+      if (position == buffer.length)
+      {
+         flush();
+      }
+      buffer[position++] = (byte)b;
+   }
+
+   private void flush() throws IOException
+   {
+      if (position > 0)
+      {
+         out.write(buffer, 0, position);
+         count += position;
+         position = 0;
+      }
+   }
+
+   static class Base64 extends BinaryDecoder
+   {
+
+      /** The sextet of each ASCII char or -1. */
+      private static final byte[] SEXTETS = new byte[128];
+
+      static
+      {
+         String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+         Arrays.fill(SEXTETS, (byte)-1);
+         for (int i = 0;i < alphabet.length();i++)
+         {
+            SEXTETS[alphabet.charAt(i)] = (byte)i;
+         }
+      }
+
+      /** The accumulated sextets. */
+      private int bits;
+
+      /** The number of accumulated sextets. */
+      private int sextets;
+
+      /** The number of padding chars. */
+      private int padding;
+
+      Base64(OutputStream out)
+      {
+         super(out);
+      }
+
+      @Override
+      void decode(char[] chars, int offset, int length) throws IllegalArgumentException, IOException
+      {
+         for (int i = offset, to = offset + length;i < to;i++)
+         {
+            char c = chars[i];
+            if (c <= ' ')
+            {
+               continue;
+            }
+            int sextet = c < 128 ? SEXTETS[c] : -1;
+            if (sextet >= 0 && padding == 0)
+            {
+               bits = (bits << 6) | sextet;
+               if (++sextets == 4)
+               {
+                  write(bits >> 16);
+                  write(bits >> 8);
+                  write(bits);
+                  bits = 0;
+                  sextets = 0;
+               }
+            }
+            else if (c == '=' && sextets >= 2 && sextets + padding < 4)
+            {
+               padding++;
+            }
+            else
+            {
+               throw new IllegalArgumentException("Invalid base64 char '" + c + "'");
+            }
+         }
+      }
+
+      @Override
+      int finish() throws IllegalArgumentException, IOException
+      {
+         if (sextets == 2 && padding == 2)
+         {
+            write(bits >> 4);
+         }
+         else if (sextets == 3 && padding == 1)
+         {
+            write(bits >> 10);
+            write(bits >> 2);
+         }
+         else if (sextets != 0)
+         {
+            throw new IllegalArgumentException("Truncated base64 content");
+         }
+         return super.finish();
+      }
+   }
+
+   static class Hex extends BinaryDecoder
+   {
+
+      /** The high nibble or -1. */
+      private int high;
+
+      Hex(OutputStream out)
+      {
+         super(out);
+
+         //
+         this.high = -1;
+      }
+
+      @Override
+      void decode(char[] chars, int offset, int length) throws IllegalArgumentException, IOException
+      {
+         for (int i = offset, to = offset + length;i < to;i++)
+         {
+            char c = chars[i];
+            if (c <= ' ')
+            {
+               continue;
+            }
+            int nibble;
+            if (c >= '0' && c <= '9')
+            {
+               nibble = c - '0';
+            }
+            else if (c >= 'a' && c <= 'f')
+            {
+               nibble = c - 'a' + 10;
+            }
+            else if (c >= 'A' && c <= 'F')
+            {
+               nibble = c - 'A' + 10;
+            }
+            else
+            {
+               throw new IllegalArgumentException("Invalid hexadecimal char '" + c + "'");
+            }
+            if (high == -1)
+            {
+               high = nibble;
+            }
+            else
+            {
+               write((high << 4) | nibble);
+               high = -1;
+            }
+         }
+      }
+
+      @Override
+      int finish() throws IllegalArgumentException, IOException
+      {
+         if (high != -1)
+         {
+            throw new IllegalArgumentException("Truncated hexadecimal content");
+         }
+         return super.finish();
+      }
+   }
+
+   /**
+    * An output stream writing to a byte buffer.
+    */
+   static class BufferOutputStream extends OutputStream
+   {
+
+      /** . */
+      private final ByteBuffer buffer;
+
+      BufferOutputStream(ByteBuffer buffer)
+      {
+         this.buffer = buffer;
+      }
+
+      @Override
+      public void write(int b)
+      {
+         buffer.put((byte)b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len)
+      {
+         buffer.put(b, off, len);
+      }
+   }
+}
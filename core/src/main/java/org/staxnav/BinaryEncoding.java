@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import java.io.OutputStream;
+
+/**
+ * The textual encodings of a binary content.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public enum BinaryEncoding
+{
+
+   /**
+    * The base64 encoding, white spaces are ignored.
+    */
+   BASE64
+   {
+      @Override
+      BinaryDecoder decoder(OutputStream out)
+      {
+         return new BinaryDecoder.Base64(out);
+      }
+   },
+
+   /**
+    * The hexadecimal encoding, the case of the digits and the white spaces are ignored.
+    */
+   HEX
+   {
+      @Override
+      BinaryDecoder decoder(OutputStream out)
+      {
+         return new BinaryDecoder.Hex(out);
+      }
+   };
+
+   /**
+    * Creates a decoder writing the decoded bytes to the specified output stream.
+    *
+    * @param out the output stream
+    * @return the decoder
+    */
+   abstract BinaryDecoder decoder(OutputStream out);
+
+}
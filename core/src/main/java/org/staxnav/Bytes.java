@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Searches bytes in a byte buffer eight bytes at a time: a long word of the buffer is compared with a word made of
+ * the searched byte repeated eight times and the bytes that are equal are detected with arithmetic on the whole word.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+final class Bytes
+{
+
+   /** . */
+   private static final long ONES = 0x0101010101010101L;
+
+   /** . */
+   private static final long HIGHS = 0x8080808080808080L;
+
+   private Bytes()
+   {
+   }
+
+   /**
+    * Returns the index of the first occurrence of a byte in a range of a buffer or -1 when the range does not
+    * contain the byte. The buffer is read with absolute gets and its position is not modified, its order must be
+    * little endian so that the first byte of a word is its least significant byte.
+    *
+    * @param buffer the buffer
+    * @param from the range start
+    * @param to the range end
+    * @param b the searched byte
+    * @return the byte index or -1
+    */
+   static int indexOf(ByteBuffer buffer, int from, int to, byte b)
+   {
+      if (buffer.order() != ByteOrder.LITTLE_ENDIAN)
+      {
+         throw new IllegalArgumentException("The buffer must be little endian");
+      }
+      long pattern = (b & 0xFFL) * ONES;
+      int i = from;
+      for (int last = to - 8;i <= last;i += 8)
+      {
+         long word = buffer.getLong(i) ^ pattern;
+
+         // The lowest high bit set marks the first zero byte, the borrows can only mark the following bytes
+         long found = (word - ONES) & ~word & HIGHS;
+         if (found != 0)
+         {
+            return i + (Long.numberOfTrailingZeros(found) >>> 3);
+         }
+      }
+      for (;i < to;i++)
+      {
+         if (buffer.get(i) == b)
+         {
+            return i;
+         }
+      }
+      return -1;
+   }
+}
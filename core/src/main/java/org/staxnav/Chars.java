@@ -0,0 +1,364 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+/**
+ * Parses values from a range of a char sequence without creating intermediate strings.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+final class Chars
+{
+
+   /** The powers of ten that are exactly represented by a double. */
+   private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+      1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+   };
+
+   /** The largest mantissa exactly represented by a double. */
+   private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+   /** The powers of ten that are exactly represented by a float. */
+   private static final float[] FLOAT_POWERS_OF_TEN = {
+      1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+   };
+
+   /** The largest mantissa exactly represented by a float. */
+   private static final long MAX_EXACT_FLOAT_MANTISSA = 1L << 24;
+
+   private Chars()
+   {
+   }
+
+   /**
+    * Returns the index of the first char of the range that is not a white space, the same definition than
+    * {@link String#trim()} is used.
+    *
+    * @param s the chars
+    * @param from the range start
+    * @param to the range end
+    * @return the trimmed range start
+    */
+   static int trimStart(CharSequence s, int from, int to)
+   {
+      while (from < to && s.charAt(from) <= ' ')
+      {
+         from++;
+      }
+      return from;
+   }
+
+   /**
+    * Returns the index following the last char of the range that is not a white space, the same definition than
+    * {@link String#trim()} is used.
+    *
+    * @param s the chars
+    * @param from the range start
+    * @param to the range end
+    * @return the trimmed range end
+    */
+   static int trimEnd(CharSequence s, int from, int to)
+   {
+      while (to > from && s.charAt(to - 1) <= ' ')
+      {
+         to--;
+      }
+      return to;
+   }
+
+   static int parseInt(CharSequence s, int from, int to) throws NumberFormatException
+   {
+      return (int)parseLong(s, from, to, Integer.MIN_VALUE, Integer.MAX_VALUE);
+   }
+
+   static long parseLong(CharSequence s, int from, int to) throws NumberFormatException
+   {
+      return parseLong(s, from, to, Long.MIN_VALUE, Long.MAX_VALUE);
+   }
+
+   /**
+    * Parses a decimal integer with an optional sign, the value must be in the specified bounds. The value is
+    * accumulated negatively so the minimum value can be parsed without overflow.
+    *
+    * @param s the chars
+    * @param from the range start
+    * @param to the range end
+    * @param min the minimum value
+    * @param max the maximum value
+    * @return the parsed value
+    * @throws NumberFormatException if the range is not a valid integer
+    */
+   static long parseLong(CharSequence s, int from, int to, long min, long max) throws NumberFormatException
+   {
+      int i = from;
+      boolean negative = false;
+      if (i < to)
+      {
+         char c = s.charAt(i);
+         if (c == '-')
+         {
+            negative = true;
+            i++;
+         }
+         else if (c == '+')
+         {
+            i++;
+         }
+      }
+      if (i == to)
+      {
+         throw invalid(s, from, to);
+      }
+      long limit = negative ? min : -max;
+      long multiplyMin = limit / 10;
+      long result = 0;
+      while (i < to)
+      {
+         int digit = s.charAt(i++) - '0';
+         if (digit < 0 || digit > 9 || result < multiplyMin)
+         {
+            throw invalid(s, from, to);
+         }
+         result *= 10;
+         if (result < limit + digit)
+         {
+            throw invalid(s, from, to);
+         }
+         result -= digit;
+      }
+      return negative ? result : -result;
+   }
+
+   /**
+    * Parses a decimal floating point number with the format accepted by {@link Double#parseDouble(String)}.
+    *
+    * @param s the chars
+    * @param from the range start
+    * @param to the range end
+    * @return the parsed value
+    * @throws NumberFormatException if the range is not a valid floating point number
+    */
+   static double parseDouble(CharSequence s, int from, int to) throws NumberFormatException
+   {
+      return parseDecimal(s, from, to, false);
+   }
+
+   /**
+    * Parses a decimal floating point number with the format accepted by {@link Float#parseFloat(String)}.
+    *
+    * @param s the chars
+    * @param from the range start
+    * @param to the range end
+    * @return the parsed value
+    * @throws NumberFormatException if the range is not a valid floating point number
+    */
+   static float parseFloat(CharSequence s, int from, int to) throws NumberFormatException
+   {
+      return (float)parseDecimal(s, from, to, true);
+   }
+
+   /**
+    * Parses a decimal floating point number. When the mantissa and the exponent are small enough for the value to be
+    * computed exactly with a single multiplication or division, the value is computed directly (Clinger's
+    * fast path), otherwise the parsing is delegated to {@link Double#parseDouble(String)} or
+    * {@link Float#parseFloat(String)}. The fast path of a float is computed with float arithmetic to avoid a
+    * double rounding.
+    *
+    * @param s the chars
+    * @param from the range start
+    * @param to the range end
+    * @param single true for a float, false for a double
+    * @return the parsed value
+    * @throws NumberFormatException if the range is not a valid floating point number
+    */
+   private static double parseDecimal(CharSequence s, int from, int to, boolean single) throws NumberFormatException
+   {
+      int i = from;
+      boolean negative = false;
+      if (i < to)
+      {
+         char c = s.charAt(i);
+         if (c == '-')
+         {
+            negative = true;
+            i++;
+         }
+         else if (c == '+')
+         {
+            i++;
+         }
+      }
+
+      //
+      long mantissa = 0;
+      int significantDigits = 0;
+      int exponent = 0;
+      boolean digits = false;
+      boolean fraction = false;
+      while (i < to)
+      {
+         char c = s.charAt(i);
+         if (c >= '0' && c <= '9')
+         {
+            digits = true;
+            if (mantissa != 0 || c != '0')
+            {
+               if (++significantDigits > 18)
+               {
+                  return slowParseDecimal(s, from, to, single);
+               }
+               mantissa = mantissa * 10 + (c - '0');
+            }
+            if (fraction)
+            {
+               exponent--;
+            }
+         }
+         else if (c == '.' && !fraction)
+         {
+            fraction = true;
+         }
+         else
+         {
+            break;
+         }
+         i++;
+      }
+      if (!digits)
+      {
+         return slowParseDecimal(s, from, to, single);
+      }
+
+      //
+      if (i < to && (s.charAt(i) == 'e' || s.charAt(i) == 'E'))
+      {
+         int start = ++i;
+         if (i < to && (s.charAt(i) == '-' || s.charAt(i) == '+'))
+         {
+            i++;
+         }
+         if (i == to || to - start > 6)
+         {
+            return slowParseDecimal(s, from, to, single);
+         }
+         exponent += parseInt(s, start, to);
+         i = to;
+      }
+      if (i < to)
+      {
+         return slowParseDecimal(s, from, to, single);
+      }
+
+      //
+      double value;
+      if (mantissa == 0)
+      {
+         value = 0d;
+      }
+      else if (single && mantissa <= MAX_EXACT_FLOAT_MANTISSA && exponent >= -10 && exponent <= 10)
+      {
+         float f = mantissa;
+         value = exponent < 0 ? f / FLOAT_POWERS_OF_TEN[-exponent] : f * FLOAT_POWERS_OF_TEN[exponent];
+      }
+      else if (!single && mantissa <= MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22)
+      {
+         value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+      }
+      else
+      {
+         return slowParseDecimal(s, from, to, single);
+      }
+      return negative ? -value : value;
+   }
+
+   private static double slowParseDecimal(CharSequence s, int from, int to, boolean single) throws NumberFormatException
+   {
+      String value = s.subSequence(from, to).toString();
+      return single ? Float.parseFloat(value) : Double.parseDouble(value);
+   }
+
+   /**
+    * Parses a boolean: <code>true</code> or <code>1</code> and <code>false</code> or <code>0</code>, the case
+    * of <code>true</code> and <code>false</code> is ignored.
+    *
+    * @param s the chars
+    * @param from the range start
+    * @param to the range end
+    * @return the parsed value
+    * @throws IllegalArgumentException if the range is not a valid boolean
+    */
+   static boolean parseBoolean(CharSequence s, int from, int to) throws IllegalArgumentException
+   {
+      int length = to - from;
+      if (length == 1)
+      {
+         char c = s.charAt(from);
+         if (c == '1')
+         {
+            return true;
+         }
+         else if (c == '0')
+         {
+            return false;
+         }
+      }
+      else if (equalsIgnoreCase(s, from, to, "true"))
+      {
+         return true;
+      }
+      else if (equalsIgnoreCase(s, from, to, "false"))
+      {
+         return false;
+      }
+      throw new IllegalArgumentException("Not a boolean value \"" + s.subSequence(from, to) + "\"");
+   }
+
+   /**
+    * Returns true when the range is equals to the specified lower case string ignoring the case.
+    *
+    * @param s the chars
+    * @param from the range start
+    * @param to the range end
+    * @param lowerCase the lower case string
+    * @return true if the range matches the string
+    */
+   static boolean equalsIgnoreCase(CharSequence s, int from, int to, String lowerCase)
+   {
+      if (to - from != lowerCase.length())
+      {
+         return false;
+      }
+      for (int i = 0;i < lowerCase.length();i++)
+      {
+         if (Character.toLowerCase(s.charAt(from + i)) != lowerCase.charAt(i))
+         {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static NumberFormatException invalid(CharSequence s, int from, int to)
+   {
+      return new NumberFormatException("For input string: \"" + s.subSequence(from, to) + "\"");
+   }
+}
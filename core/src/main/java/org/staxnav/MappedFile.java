@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>A file mapped in memory with <code>FileChannel.map</code>. The parsers read the mapped bytes through input
+ * streams that copy them directly from the mapping, without the intermediate buffers of a file input stream. A
+ * mapping is limited to 2GB, so larger files are mapped as several consecutive segments.</p>
+ *
+ * <p>Any range of the file can be read, the {@link #indexOf(byte, long)} method finds a byte eight bytes at a time to
+ * quickly locate the markup from which a parser can start.</p>
+ *
+ * <p>The file is closed once it is mapped, the mapping is released when the mapped file is garbage collected since
+ * Java does not provide a way to release it explicitly. A mapped file can be read concurrently.</p>
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public final class MappedFile
+{
+
+   /** . */
+   private static final int SEGMENT_SIZE = 1 << 30;
+
+   /**
+    * Maps a file in memory.
+    *
+    * @param file the file
+    * @return the mapped file
+    * @throws NullPointerException if the file is null
+    * @throws IOException any IOException
+    */
+   public static MappedFile map(File file) throws NullPointerException, IOException
+   {
+      return map(file, SEGMENT_SIZE);
+   }
+
+   static MappedFile map(File file, int segmentSize) throws NullPointerException, IOException
+   {
+      if (file == null)
+      {
+         throw new NullPointerException("No null file accepted");
+      }
+      RandomAccessFile raf = new RandomAccessFile(file, "r");
+      try
+      {
+         FileChannel channel = raf.getChannel();
+         long length = channel.size();
+         ByteBuffer[] segments = new ByteBuffer[(int)((length + segmentSize - 1) / segmentSize)];
+         for (int i = 0;i < segments.length;i++)
+         {
+            long position = (long)i * segmentSize;
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentSize, length - position));
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            segments[i] = segment;
+         }
+         return new MappedFile(file.toURI().toString(), segments, segmentSize, length);
+      }
+      finally
+      {
+         raf.close();
+      }
+   }
+
+   /** . */
+   private final String systemId;
+
+   /** The segments, their order is little endian. */
+   private final ByteBuffer[] segments;
+
+   /** . */
+   private final int segmentSize;
+
+   /** . */
+   private final long length;
+
+   private MappedFile(String systemId, ByteBuffer[] segments, int segmentSize, long length)
+   {
+      this.systemId = systemId;
+      this.segments = segments;
+      this.segmentSize = segmentSize;
+      this.length = length;
+   }
+
+   /**
+    * Returns the file length.
+    *
+    * @return the length in bytes
+    */
+   public long length()
+   {
+      return length;
+   }
+
+   /**
+    * Returns a stream of the file bytes.
+    *
+    * @return the input stream
+    */
+   public InputStream getInputStream()
+   {
+      return new MappedInputStream(0, length);
+   }
+
+   /**
+    * Returns a stream of a range of the file bytes.
+    *
+    * @param start the range start
+    * @param end the range end
+    * @return the input stream
+    * @throws IndexOutOfBoundsException if the range is not valid
+    */
+   public InputStream getInputStream(long start, long end) throws IndexOutOfBoundsException
+   {
+      if (start < 0 || end > length || start > end)
+      {
+         throw new IndexOutOfBoundsException("Invalid range [" + start + "," + end + "] of a file of length " + length);
+      }
+      return new MappedInputStream(start, end);
+   }
+
+   /**
+    * Creates a navigator of the file.
+    *
+    * @param naming the naming
+    * @param factory the factory of the stream reader
+    * @param <N> the name type
+    * @return the navigator
+    * @throws NullPointerException if any argument is null
+    * @throws XMLStreamException any XMLStreamException
+    */
+   public <N> StaxNavigator<N> navigator(Naming<N> naming, XMLInputFactory factory) throws NullPointerException, XMLStreamException
+   {
+      if (factory == null)
+      {
+         throw new NullPointerException("No null factory accepted");
+      }
+      return new StaxNavigatorImpl<N>(naming, factory.createXMLStreamReader(systemId, getInputStream()));
+   }
+
+   /**
+    * Returns the position of the first occurrence of a byte from a position or -1 when the file does not contain
+    * the byte after the position.
+    *
+    * @param b the byte
+    * @param from the position to search from
+    * @return the byte position or -1
+    */
+   public long indexOf(byte b, long from)
+   {
+      for (int i = (int)(Math.max(0, from) / segmentSize);i < segments.length;i++)
+      {
+         long base = (long)i * segmentSize;
+         ByteBuffer segment = segments[i];
+         int index = Bytes.indexOf(segment, (int)Math.max(0, from - base), segment.limit(), b);
+         if (index != -1)
+         {
+            return base + index;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Returns the number of segments.
+    *
+    * @return the segment count
+    */
+   int getSegmentCount()
+   {
+      return segments.length;
+   }
+
+   /**
+    * Returns a segment of the file, the returned buffer is a little endian duplicate that can be used by the caller.
+    *
+    * @param index the segment index
+    * @return the segment
+    */
+   ByteBuffer getSegment(int index)
+   {
+      return segments[index].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+   }
+
+   /**
+    * Returns the position of a segment in the file.
+    *
+    * @param index the segment index
+    * @return the segment position
+    */
+   long getSegmentPosition(int index)
+   {
+      return (long)index * segmentSize;
+   }
+
+   /**
+    * Reads a range of the segments with its own duplicates of the segments.
+    */
+   private class MappedInputStream extends InputStream
+   {
+
+      /** . */
+      private long position;
+
+      /** . */
+      private final long end;
+
+      /** The duplicate of the current segment. */
+      private ByteBuffer buffer;
+
+      /** The index of the current segment. */
+      private int index;
+
+      private MappedInputStream(long position, long end)
+      {
+         this.position = position;
+         this.end = end;
+         this.buffer = null;
+         this.index = -1;
+      }
+
+      /**
+       * Returns the duplicate of the segment containing the current position, positioned at the current position.
+       *
+       * @return the buffer
+       */
+      private ByteBuffer buffer()
+      {
+         int index = (int)(position / segmentSize);
+         if (index != this.index)
+         {
+            buffer = segments[index].duplicate();
+            this.index = index;
+         }
+         buffer.position((int)(position - (long)index * segmentSize));
+         return buffer;
+      }
+
+      @Override
+      public int read() throws IOException
+      {
+         if (position >= end)
+         {
+            return -1;
+         }
+         int b = buffer().get() & 0xFF;
+         position++;
+         return b;
+      }
+
+      @Override
+      public int read(byte[] bytes, int off, int len) throws IOException
+      {
+         if (off < 0 || len < 0 || off + len > bytes.length)
+         {
+            throw new IndexOutOfBoundsException();
+         }
+         if (len == 0)
+         {
+            return 0;
+         }
+         if (position >= end)
+         {
+            return -1;
+         }
+         ByteBuffer buffer = buffer();
+         int count = (int)Math.min(Math.min(len, end - position), buffer.remaining());
+         buffer.get(bytes, off, count);
+         position += count;
+         return count;
+      }
+
+      @Override
+      public long skip(long n) throws IOException
+      {
+         long count = Math.max(0, Math.min(n, end - position));
+         position += count;
+         return count;
+      }
+
+      @Override
+      public int available() throws IOException
+      {
+         return (int)Math.min(end - position, Integer.MAX_VALUE);
+      }
+   }
+}
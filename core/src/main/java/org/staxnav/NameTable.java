@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>An immutable lookup table from names to values using a perfect hash: a multiplier is searched at construction
+ * time so that the slots of the names are all different, a lookup hashes the key, reads a single slot and compares
+ * the key with the name stored in that slot.</p>
+ *
+ * <p>The hash of a name is the same than {@link String#hashCode()} so the hash of a string key is not recomputed and
+ * a key can also be provided as a range of characters. In the unlikely case where several names have the same hash
+ * code, all but the first are stored in an overflow map.</p>
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ * @param <V> the value type
+ */
+final class NameTable<V>
+{
+
+   /** The maximum number of bits of the table size. */
+   private static final int MAX_BITS = 20;
+
+   /** The number of multipliers tried for a given table size. */
+   private static final int ATTEMPTS = 64;
+
+   /** . */
+   private final String[] names;
+
+   /** . */
+   private final Object[] values;
+
+   /** . */
+   private final int multiplier;
+
+   /** . */
+   private final int shift;
+
+   /** . */
+   private final Map<String, V> overflow;
+
+   NameTable(Map<String, V> entries)
+   {
+      Map<Integer, String> hashes = new HashMap<Integer, String>();
+      Map<String, V> overflow = null;
+      String[] keys = new String[entries.size()];
+      int size = 0;
+      for (Map.Entry<String, V> entry : entries.entrySet())
+      {
+         String name = entry.getKey();
+         if (hashes.containsKey(name.hashCode()))
+         {
+            if (overflow == null)
+            {
+               overflow = new HashMap<String, V>();
+            }
+            overflow.put(name, entry.getValue());
+         }
+         else
+         {
+            hashes.put(name.hashCode(), name);
+            keys[size++] = name;
+         }
+      }
+
+      //
+      int bits = 1;
+      while ((1 << bits) < size * 2)
+      {
+         bits++;
+      }
+
+      //
+      int multiplier = 0;
+      search:
+      for (;bits <= MAX_BITS;bits++)
+      {
+         int candidate = 0x9E3779B9;
+         for (int attempt = 0;attempt < ATTEMPTS;attempt++)
+         {
+            boolean[] used = new boolean[1 << bits];
+            int i = 0;
+            while (i < size)
+            {
+               int index = (keys[i].hashCode() * candidate) >>> (32 - bits);
+               if (used[index])
+               {
+                  break;
+               }
+               used[index] = true;
+               i++;
+            }
+            if (i == size)
+            {
+               multiplier = candidate;
+               break search;
+            }
+            candidate = candidate * 0x5DEECE6D + 0xB;
+            candidate |= 1;
+         }
+      }
+      if (bits > MAX_BITS)
+      {
+         throw new IllegalArgumentException("Could not build a name table for " + entries.keySet());
+      }
+
+      //
+      String[] names = new String[1 << bits];
+      Object[] values = new Object[1 << bits];
+      for (int i = 0;i < size;i++)
+      {
+         int index = (keys[i].hashCode() * multiplier) >>> (32 - bits);
+         names[index] = keys[i];
+         values[index] = entries.get(keys[i]);
+      }
+
+      //
+      this.names = names;
+      this.values = values;
+      this.multiplier = multiplier;
+      this.shift = 32 - bits;
+      this.overflow = overflow;
+   }
+
+   /**
+    * Returns the value of a name or null if it does not exist.
+    *
+    * @param name the name
+    * @return the value
+    */
+   V get(String name)
+   {
+      int index = (name.hashCode() * multiplier) >>> shift;
+      String found = names[index];
+      if (found != null && found.equals(name))
+      {
+         @SuppressWarnings("unchecked")
+         V value = (V)values[index];
+         return value;
+      }
+      else if (overflow != null)
+      {
+         return overflow.get(name);
+      }
+      else
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Returns the value of a name provided as a range of characters or null if it does not exist.
+    *
+    * @param chars the characters
+    * @param offset the offset of the name
+    * @param length the length of the name
+    * @return the value
+    */
+   V get(char[] chars, int offset, int length)
+   {
+      int hash = 0;
+      for (int i = offset;i < offset + length;i++)
+      {
+         hash = 31 * hash + chars[i];
+      }
+      int index = (hash * multiplier) >>> shift;
+      String found = names[index];
+      if (found != null && found.length() == length)
+      {
+         int i = 0;
+         while (i < length && found.charAt(i) == chars[offset + i])
+         {
+            i++;
+         }
+         if (i == length)
+         {
+            @SuppressWarnings("unchecked")
+            V value = (V)values[index];
+            return value;
+         }
+      }
+      if (overflow != null)
+      {
+         return overflow.get(new String(chars, offset, length));
+      }
+      else
+      {
+         return null;
+      }
+   }
+}
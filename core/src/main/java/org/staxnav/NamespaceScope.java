@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>An immutable set of the namespace bindings in scope for an element. An element that does not declare namespaces
+ * shares the scope of its parent, an element that declares namespaces gets a new scope containing all the bindings
+ * inherited from its parent plus its own declarations, so resolving a prefix is a single lookup whatever the
+ * depth of the element is.</p>
+ *
+ * <p>A scope remembers the last scope derived from it, when sibling elements repeat the same declarations they share
+ * the same scope instance.</p>
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+final class NamespaceScope
+{
+
+   /** . */
+   static final NamespaceScope EMPTY = new NamespaceScope(Collections.<String, String>emptyMap());
+
+   /** . */
+   private final Map<String, String> bindings;
+
+   /** The last derived scope, it is immutable so it can be published without synchronization. */
+   private Derivation last;
+
+   private NamespaceScope(Map<String, String> bindings)
+   {
+      this.bindings = bindings;
+   }
+
+   String getNamespaceURI(String prefix)
+   {
+      return bindings.get(prefix);
+   }
+
+   /**
+    * Returns the scope of the element the stream points to, the stream must be positioned on a start element event.
+    *
+    * @param stream the stream
+    * @return the scope of the current element
+    */
+   NamespaceScope push(XMLStreamReader stream)
+   {
+      int count = stream.getNamespaceCount();
+      if (count == 0)
+      {
+         return this;
+      }
+
+      //
+      Derivation derivation = last;
+      if (derivation != null && derivation.matches(stream, count))
+      {
+         return derivation.scope;
+      }
+
+      //
+      String[] declarations = new String[count * 2];
+      Map<String, String> bindings = new HashMap<String, String>(this.bindings);
+      for (int i = 0;i < count;i++)
+      {
+         String prefix = stream.getNamespacePrefix(i);
+         if (prefix == null)
+         {
+            prefix = XMLConstants.DEFAULT_NS_PREFIX;
+         }
+         String namespaceURI = stream.getNamespaceURI(i);
+         declarations[i * 2] = prefix;
+         declarations[i * 2 + 1] = namespaceURI;
+         if (namespaceURI != null)
+         {
+            bindings.put(prefix, namespaceURI);
+         }
+      }
+      NamespaceScope scope = new NamespaceScope(bindings);
+      last = new Derivation(declarations, scope);
+      return scope;
+   }
+
+   private static final class Derivation
+   {
+
+      /** The prefix and namespace URI pairs. */
+      private final String[] declarations;
+
+      /** . */
+      private final NamespaceScope scope;
+
+      private Derivation(String[] declarations, NamespaceScope scope)
+      {
+         this.declarations = declarations;
+         this.scope = scope;
+      }
+
+      private boolean matches(XMLStreamReader stream, int count)
+      {
+         if (declarations.length != count * 2)
+         {
+            return false;
+         }
+         for (int i = 0;i < count;i++)
+         {
+            String prefix = stream.getNamespacePrefix(i);
+            if (prefix == null)
+            {
+               prefix = XMLConstants.DEFAULT_NS_PREFIX;
+            }
+            if (!prefix.equals(declarations[i * 2]) || !equals(stream.getNamespaceURI(i), declarations[i * 2 + 1]))
+            {
+               return false;
+            }
+         }
+         return true;
+      }
+
+      private static boolean equals(String s1, String s2)
+      {
+         return s1 == null ? s2 == null : s1.equals(s2);
+      }
+   }
+}
@@ -19,9 +19,11 @@
 
 package org.staxnav;
 
+import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
 import java.util.EnumMap;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -41,6 +43,19 @@ public abstract class Naming<N>
 
    public abstract N getName(String uri, String prefix, String localPart);
 
+   /**
+    * Returns the name of the element the stream points to, the stream must be positioned on a start element event.
+    * The default implementation delegates to {@link #getName(QName)} with the name provided by the stream,
+    * subclasses should override it when they can avoid the creation of a <code>QName</code>.
+    *
+    * @param stream the stream
+    * @return the name of the current element
+    */
+   public N getName(XMLStreamReader stream)
+   {
+      return getName(stream.getName());
+   }
+
    public static class Local extends Naming<String>
    {
 
@@ -56,6 +71,21 @@ public abstract class Naming<N>
          return name == null ? null : name.getLocalPart();
       }
 
+      /**
+       * Returns the local name of the stream, the prefix is removed when the stream does not process the namespaces
+       * and reports the qualified name as the local name.
+       *
+       * @param stream the stream
+       * @return the local name
+       */
+      @Override
+      public String getName(XMLStreamReader stream)
+      {
+         String localName = stream.getLocalName();
+         int index = localName.indexOf(':');
+         return index == -1 ? localName : localName.substring(index + 1);
+      }
+
       @Override
       public String getPrefix(String name)
       {
@@ -75,13 +105,45 @@ public abstract class Naming<N>
       }
    }
 
+   /**
+    * A naming using qualified names, the names are pooled so the elements having the same namespace URI, local part
+    * and prefix share the same <code>QName</code> instance most of the time. The pool is bounded and an entry is
+    * replaced when another name needs its slot.
+    */
    public static class Qualified extends Naming<QName>
    {
 
+      /** The pool size, a power of two. */
+      private static final int POOL_SIZE = 512;
+
+      /** The pool is accessed without synchronization as a QName is immutable. */
+      private final QName[] pool = new QName[POOL_SIZE];
+
       @Override
       public QName getName(String uri, String prefix, String localPart)
       {
-         return prefix != null ? new QName(uri, localPart, prefix) : new QName(uri, localPart);
+         return intern(uri != null ? uri : XMLConstants.NULL_NS_URI, localPart, prefix != null ? prefix : XMLConstants.DEFAULT_NS_PREFIX);
+      }
+
+      @Override
+      public QName getName(XMLStreamReader stream)
+      {
+         String uri = stream.getNamespaceURI();
+         String prefix = stream.getPrefix();
+         return intern(uri != null ? uri : XMLConstants.NULL_NS_URI, stream.getLocalName(), prefix != null ? prefix : XMLConstants.DEFAULT_NS_PREFIX);
+      }
+
+      private QName intern(String uri, String localPart, String prefix)
+      {
+         int hash = (uri.hashCode() * 31 + localPart.hashCode()) * 31 + prefix.hashCode();
+         int index = (hash ^ (hash >>> 16)) & (POOL_SIZE - 1);
+         QName name = pool[index];
+         if (name == null || !localPart.equals(name.getLocalPart()) || !uri.equals(name.getNamespaceURI()) || !prefix.equals(name.getPrefix()))
+         {
+            name = new QName(uri, localPart, prefix);
+            pool[index] = name;
+         }
+         return name;
       }
 
       @Override
@@ -130,6 +192,26 @@ public abstract class Naming<N>
          return name == null ? null : getName(null, null, name.getLocalPart());
       }
 
+      @Override
+      public E getName(XMLStreamReader stream)
+      {
+         return getName(null, null, stream.getLocalName());
+      }
+
+      /**
+       * Returns the name for a local part provided as a range of characters, this default implementation creates
+       * a string from the range and delegates to {@link #getName(String, String, String)}.
+       *
+       * @param chars the characters
+       * @param offset the offset of the first character of the local part
+       * @param length the length of the local part
+       * @return the name
+       */
+      public E getName(char[] chars, int offset, int length)
+      {
+         return getName(null, null, new String(chars, offset, length));
+      }
+
       @Override
       public String getURI(E name)
       {
@@ -161,7 +243,7 @@ public abstract class Naming<N>
       {
 
          /** . */
-         private final Map<String, E> toName;
+         private final NameTable<E> toName;
 
          /** . */
          private final Map<E, String> toLocalPart;
@@ -171,7 +253,7 @@ public abstract class Naming<N>
             super(enumType, noSuchElement);
 
             //
-            Map<String, E> toName = new HashMap<String, E>();
+            Map<String, E> toName = new LinkedHashMap<String, E>();
             Map<E, String> toLocalPart = new EnumMap<E, String>(enumType);
             for (E value : enumType.getEnumConstants())
             {
@@ -181,7 +263,7 @@ public abstract class Naming<N>
             }
 
             //
-            this.toName = toName;
+            this.toName = new NameTable<E>(toName);
             this.toLocalPart = toLocalPart;
          }
 
@@ -197,20 +279,38 @@ public abstract class Naming<N>
             E name = toName.get(localPart);
             return name != null ? name : noSuchElement;
          }
+
+         @Override
+         public E getName(char[] chars, int offset, int length)
+         {
+            E name = toName.get(chars, offset, length);
+            return name != null ? name : noSuchElement;
+         }
       }
 
       public static class Mapped<E extends Enum<E> & EnumElement<E>> extends Enumerated<E>
       {
 
          /** . */
-         private final  E[] all;
+         private final NameTable<E> toName;
 
          public Mapped(Class<E> enumType, E noSuchElement)
          {
             super(enumType, noSuchElement);
 
             //
-            this.all = enumType.getEnumConstants();
+            Map<String, E> toName = new LinkedHashMap<String, E>();
+            for (E value : enumType.getEnumConstants())
+            {
+               String localPart = value.getLocalName();
+               if (localPart != null && !toName.containsKey(localPart))
+               {
+                  toName.put(localPart, value);
+               }
+            }
+
+            //
+            this.toName = new NameTable<E>(toName);
          }
 
          @Override
@@ -222,14 +322,15 @@ public abstract class Naming<N>
          @Override
          public E getName(String uri, String prefix, String localPart)
          {
-            for (E e : all)
-            {
-               if (localPart.equals(e.getLocalName()))
-               {
-                  return e;
-               }
-            }
-            return noSuchElement;
+            E name = toName.get(localPart);
+            return name != null ? name : noSuchElement;
+         }
+
+         @Override
+         public E getName(char[] chars, int offset, int length)
+         {
+            E name = toName.get(chars, offset, length);
+            return name != null ? name : noSuchElement;
          }
       }
    }
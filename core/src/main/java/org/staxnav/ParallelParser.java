@@ -0,0 +1,450 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <p>Parses the children of the document element of a document, the records, in parallel. The records must be
+ * independent from each other, which is the case of documents made of a document element containing a large number
+ * of similar elements.</p>
+ *
+ * <p>A byte level scan of the document finds the boundaries of the records, see {@link RecordScanner} for the
+ * supported encodings. The records are grouped in chunks of about {@link #getChunkSize()} bytes and each chunk is
+ * parsed by a task of the executor as a document made of the prolog of the original document, the start tag of the
+ * document element, the records of the chunk and the end tag of the document element, so that the records inherit
+ * the namespace declarations and the entities of the original document.</p>
+ *
+ * <p>Each record is handed to the handler as a navigator forked around the record. The records of a chunk are
+ * handled in document order by the same thread while the chunks are handled concurrently, therefore the handler must
+ * be thread safe. The locations of the navigators are relative to the chunk of the record.</p>
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ * @param <N> the name type
+ */
+public class ParallelParser<N>
+{
+
+   /** . */
+   private static final int BLOCK_SIZE = 64 * 1024;
+
+   /** . */
+   private final Naming<N> naming;
+
+   /** . */
+   private final XMLInputFactory factory;
+
+   /** . */
+   private final ExecutorService executor;
+
+   /** . */
+   private int chunkSize;
+
+   public ParallelParser(Naming<N> naming, XMLInputFactory factory, ExecutorService executor) throws NullPointerException
+   {
+      if (naming == null)
+      {
+         throw new NullPointerException("No null naming accepted");
+      }
+      if (factory == null)
+      {
+         throw new NullPointerException("No null factory accepted");
+      }
+      if (executor == null)
+      {
+         throw new NullPointerException("No null executor accepted");
+      }
+
+      //
+      this.naming = naming;
+      this.factory = factory;
+      this.executor = executor;
+      this.chunkSize = 256 * 1024;
+   }
+
+   /**
+    * Returns the chunk size.
+    *
+    * @return the chunk size in bytes
+    */
+   public int getChunkSize()
+   {
+      return chunkSize;
+   }
+
+   /**
+    * Configures the number of bytes of records above which a chunk is handed to the executor.
+    *
+    * @param chunkSize the chunk size in bytes
+    * @throws IllegalArgumentException if the chunk size is not positive
+    */
+   public void setChunkSize(int chunkSize) throws IllegalArgumentException
+   {
+      if (chunkSize <= 0)
+      {
+         throw new IllegalArgumentException("Chunk size must be positive");
+      }
+      this.chunkSize = chunkSize;
+   }
+
+   /**
+    * Parses the records of a document and returns the number of parsed records. When the handling of a record fails
+    * the first failure in document order is rethrown once the running tasks are over.
+    *
+    * @param document the document
+    * @param handler the record handler
+    * @return the number of records
+    * @throws NullPointerException if any argument is null
+    * @throws StaxNavException any StaxNavException
+    */
+   public int parse(final byte[] document, Parser<N> handler) throws NullPointerException, StaxNavException
+   {
+      if (document == null)
+      {
+         throw new NullPointerException("No null document accepted");
+      }
+      if (handler == null)
+      {
+         throw new NullPointerException("No null handler accepted");
+      }
+      Parsing parsing = new Parsing(handler)
+      {
+         @Override
+         InputStream open(long start, long end)
+         {
+            return new ByteArrayInputStream(document, (int)start, (int)(end - start));
+         }
+      };
+      try
+      {
+         parsing.scan(ByteBuffer.wrap(document), 0, document.length, 0);
+         return parsing.finish();
+      }
+      catch (IOException e)
+      {
+         throw new AssertionError(e);
+      }
+      finally
+      {
+         parsing.cancel();
+      }
+   }
+
+   /**
+    * Parses the records of a file, see {@link #parse(byte[], Parser)}. The file is mapped in memory, it is scanned
+    * directly from the mapping and each task reads the bytes of its chunk from the mapping.
+    *
+    * @param file the file
+    * @param handler the record handler
+    * @return the number of records
+    * @throws NullPointerException if any argument is null
+    * @throws IOException any exception thrown while mapping the file
+    * @throws StaxNavException any StaxNavException
+    */
+   public int parse(File file, Parser<N> handler) throws NullPointerException, IOException, StaxNavException
+   {
+      if (file == null)
+      {
+         throw new NullPointerException("No null file accepted");
+      }
+      if (handler == null)
+      {
+         throw new NullPointerException("No null handler accepted");
+      }
+      final MappedFile mapped = MappedFile.map(file);
+      Parsing parsing = new Parsing(handler)
+      {
+         @Override
+         InputStream open(long start, long end)
+         {
+            return mapped.getInputStream(start, end);
+         }
+      };
+      try
+      {
+         for (int i = 0;i < mapped.getSegmentCount();i++)
+         {
+            ByteBuffer segment = mapped.getSegment(i);
+            long position = mapped.getSegmentPosition(i);
+            for (int off = 0;off < segment.limit();off += BLOCK_SIZE)
+            {
+               parsing.scan(segment, off, Math.min(BLOCK_SIZE, segment.limit() - off), position + off);
+            }
+         }
+         return parsing.finish();
+      }
+      finally
+      {
+         parsing.cancel();
+      }
+   }
+
+   /**
+    * Parses the records of a chunk.
+    *
+    * @param in the chunk
+    * @param handler the record handler
+    * @return the number of records
+    * @throws XMLStreamException any XMLStreamException
+    */
+   private int parse(InputStream in, Parser<N> handler) throws XMLStreamException
+   {
+      XMLStreamReader stream;
+      synchronized (factory)
+      {
+         // The StAX specification does not require the factory to be thread safe
+         stream = factory.createXMLStreamReader(in);
+      }
+      try
+      {
+         StaxNavigator<N> navigator = new StaxNavigatorImpl<N>(naming, stream);
+         int count = 0;
+         if (navigator.child() != null)
+         {
+            do
+            {
+               handler.parse(navigator.fork());
+               count++;
+            }
+            while (navigator.sibling() != null);
+         }
+         return count;
+      }
+      finally
+      {
+         stream.close();
+      }
+   }
+
+   /**
+    * The state of a parsing: the scanner and the submitted chunk tasks.
+    */
+   private abstract class Parsing
+   {
+
+      /** . */
+      private final Parser<N> handler;
+
+      /** . */
+      private final RecordScanner scanner;
+
+      /** The tasks in document order. */
+      private final List<Future<Integer>> tasks;
+
+      /** The start of the current chunk or -1. */
+      private long start;
+
+      /** The end of the current chunk. */
+      private long end;
+
+      /** The end tag of the document element. */
+      private byte[] epilog;
+
+      /** Set when the tasks that are not started yet should not parse their chunk. */
+      private volatile boolean cancelled;
+
+      private Parsing(Parser<N> handler)
+      {
+         this.handler = handler;
+         this.scanner = new RecordScanner();
+         this.tasks = new ArrayList<Future<Integer>>();
+         this.start = -1;
+      }
+
+      /**
+       * Opens the bytes of a range of the document.
+       *
+       * @param start the range start
+       * @param end the range end
+       * @return the bytes
+       * @throws IOException any IOException
+       */
+      abstract InputStream open(long start, long end) throws IOException;
+
+      void scan(ByteBuffer buffer, int off, int len, long position) throws StaxNavException
+      {
+         scanner.scan(buffer, off, len, position);
+         long[] boundaries = scanner.boundaries;
+         for (int i = 0;i < scanner.size;i += 2)
+         {
+            if (start == -1)
+            {
+               start = boundaries[i];
+            }
+            end = boundaries[i + 1];
+            if (end - start >= chunkSize)
+            {
+               submit();
+            }
+         }
+         scanner.size = 0;
+      }
+
+      private void submit()
+      {
+         final byte[] prolog = scanner.getProlog();
+         if (epilog == null)
+         {
+            try
+            {
+               epilog = ("</" + scanner.getRootName() + ">").getBytes("UTF-8");
+            }
+            catch (UnsupportedEncodingException e)
+            {
+               throw new AssertionError(e);
+            }
+         }
+         final long start = this.start;
+         final long end = this.end;
+         final byte[] epilog = this.epilog;
+         tasks.add(executor.submit(new Callable<Integer>()
+         {
+            public Integer call() throws Exception
+            {
+               if (cancelled)
+               {
+                  return 0;
+               }
+               Vector<InputStream> chunk = new Vector<InputStream>(3);
+               chunk.add(new ByteArrayInputStream(prolog));
+               chunk.add(open(start, end));
+               chunk.add(new ByteArrayInputStream(epilog));
+               return parse(new SequenceInputStream(chunk.elements()), handler);
+            }
+         }));
+         this.start = -1;
+      }
+
+      /**
+       * Submits the last chunk and waits for the tasks. When a task fails the tasks that are not started yet do not
+       * parse their chunk and the failure of the first failed task in document order is rethrown.
+       *
+       * @return the number of records
+       * @throws IOException any IOException thrown by a task
+       * @throws StaxNavException any StaxNavException
+       */
+      int finish() throws IOException, StaxNavException
+      {
+         if (!scanner.isDone())
+         {
+            throw new StaxNavException("Unexpected end of document");
+         }
+         if (start != -1)
+         {
+            submit();
+         }
+         int count = 0;
+         Throwable failure = null;
+         for (Future<Integer> task : tasks)
+         {
+            try
+            {
+               count += task.get();
+            }
+            catch (InterruptedException e)
+            {
+               Thread.currentThread().interrupt();
+               throw new StaxNavException("Interrupted while waiting for the records", e);
+            }
+            catch (ExecutionException e)
+            {
+               if (failure == null)
+               {
+                  failure = e.getCause();
+                  cancelled = true;
+               }
+            }
+         }
+
+         //
+         if (failure instanceof RuntimeException)
+         {
+            throw (RuntimeException)failure;
+         }
+         else if (failure instanceof Error)
+         {
+            throw (Error)failure;
+         }
+         else if (failure instanceof XMLStreamException)
+         {
+            throw new StaxNavException((XMLStreamException)failure);
+         }
+         else if (failure instanceof IOException)
+         {
+            throw (IOException)failure;
+         }
+         else if (failure != null)
+         {
+            throw new StaxNavException("Could not parse the records", failure);
+         }
+         return count;
+      }
+
+      /**
+       * Prevents the tasks that are not started yet to parse their chunk and waits for all the tasks so that the
+       * document is not accessed anymore.
+       */
+      void cancel()
+      {
+         cancelled = true;
+         boolean interrupted = false;
+         for (Future<Integer> task : tasks)
+         {
+            while (true)
+            {
+               try
+               {
+                  task.get();
+                  break;
+               }
+               catch (InterruptedException e)
+               {
+                  interrupted = true;
+               }
+               catch (ExecutionException ignore)
+               {
+                  break;
+               }
+            }
+         }
+         if (interrupted)
+         {
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+/**
+ * A callback invoked with a navigator scoped around an element, see {@link StaxNavigator#fork(Object, Parser)}.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ * @param <N> the name type
+ */
+public interface Parser<N>
+{
+
+   /**
+    * Parses the element the navigator is scoped around. The navigator is only valid during the invocation of this
+    * method and must not be retained.
+    *
+    * @param navigator the scoped navigator
+    * @throws StaxNavException any StaxNavException
+    */
+   void parse(StaxNavigator<N> navigator) throws StaxNavException;
+
+}
@@ -0,0 +1,642 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>A compiled query selecting elements with a subset of XPath that can be evaluated in a single forward pass:</p>
+ *
+ * <ul>
+ * <li>child <code>/</code> and descendant <code>//</code> steps</li>
+ * <li>name tests on the element local name and the <code>*</code> wildcard</li>
+ * <li>attribute predicates <code>[@name]</code> and <code>[@name='value']</code> on attributes without namespace</li>
+ * <li>position predicates <code>[n]</code> counting from 1 the siblings selected by the step</li>
+ * </ul>
+ *
+ * <p>An absolute query such as <code>/portlet/preferences/preference[@readonly]/value</code> treats the element
+ * the navigator points to as the document root element, a relative query such as <code>preference/value</code>
+ * selects among its descendants.</p>
+ *
+ * <p>The query is compiled into a state machine whose states are the query steps: for each element, the set of steps
+ * that can match its children is computed from the set of its parent. The evaluation moves the navigator in document
+ * order and never goes back. A compiled query is immutable and can be shared.</p>
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public final class PathQuery
+{
+
+   /**
+    * Compiles a query.
+    *
+    * @param expression the query expression
+    * @return the compiled query
+    * @throws NullPointerException if the expression is null
+    * @throws IllegalArgumentException if the expression is not valid
+    */
+   public static PathQuery compile(String expression) throws NullPointerException, IllegalArgumentException
+   {
+      if (expression == null)
+      {
+         throw new NullPointerException("No null expression accepted");
+      }
+      Compiler compiler = new Compiler(expression, 0);
+      boolean absolute = expression.startsWith("/");
+      List<Step> steps = compiler.compile();
+      if (steps.size() > 64)
+      {
+         throw new IllegalArgumentException("Too many steps in " + expression);
+      }
+      return new PathQuery(expression, absolute, steps.toArray(new Step[steps.size()]), compiler.slots);
+   }
+
+   /** . */
+   private final String expression;
+
+   /** . */
+   private final boolean absolute;
+
+   /** . */
+   private final Step[] steps;
+
+   /** The number of position predicates. */
+   private final int slots;
+
+   private PathQuery(String expression, boolean absolute, Step[] steps, int slots)
+   {
+      this.expression = expression;
+      this.absolute = absolute;
+      this.steps = steps;
+      this.slots = slots;
+   }
+
+   /**
+    * Returns the elements selected by the query among the element pointed to by the navigator and its descendants.
+    * The returned iterable is lazy: the evaluation moves the navigator to the next match when the iterator is asked
+    * for it and each match is returned as a navigator forked around the matching element. When the iteration is over
+    * the navigator points to the last element of the document or to the first element following the evaluated
+    * subtree. The iterable can be iterated only once.
+    *
+    * @param navigator the navigator
+    * @param <N> the name type
+    * @return the selected elements
+    * @throws NullPointerException if the navigator is null
+    */
+   public <N> Iterable<StaxNavigator<N>> select(final StaxNavigator<N> navigator) throws NullPointerException
+   {
+      if (navigator == null)
+      {
+         throw new NullPointerException("No null navigator accepted");
+      }
+      return new Iterable<StaxNavigator<N>>()
+      {
+         boolean iterated = false;
+         public Iterator<StaxNavigator<N>> iterator()
+         {
+            if (iterated)
+            {
+               throw new IllegalStateException("A query selection can be iterated only once");
+            }
+            iterated = true;
+            return new Matcher<N>(PathQuery.this, navigator);
+         }
+      };
+   }
+
+   @Override
+   public String toString()
+   {
+      return expression;
+   }
+
+   /**
+    * Evaluates the query, the state of an element is the set of steps that can match its children encoded as a bit
+    * set. The states and the position counters are kept in slots indexed by the depth relative to the evaluation
+    * root and reused for all the elements of the same depth.
+    */
+   private static class Matcher<N> implements Iterator<StaxNavigator<N>>
+   {
+
+      /** . */
+      private final PathQuery query;
+
+      /** . */
+      private final StaxNavigator<N> navigator;
+
+      /** The depth of the parent of the evaluation root. */
+      private final int offset;
+
+      /** The states by relative depth, the first one is the state of the evaluation root parent. */
+      private long[] states;
+
+      /** The position counters of the children by relative depth. */
+      private int[][] counters;
+
+      /** The relative depth of the element whose descendants cannot match or -1. */
+      private int dead;
+
+      /** . */
+      private boolean first;
+
+      /** . */
+      private boolean done;
+
+      /** . */
+      private StaxNavigator<N> next;
+
+      private Matcher(PathQuery query, StaxNavigator<N> navigator)
+      {
+         int depth = navigator.getDepth();
+         long[] states = new long[8];
+         int[][] counters = new int[8][];
+
+         // The virtual parent of the evaluation root can match the first step
+         states[0] = 1;
+         counters[0] = new int[query.slots];
+
+         //
+         this.query = query;
+         this.navigator = navigator;
+         this.offset = depth - 1;
+         this.states = states;
+         this.counters = counters;
+         this.dead = -1;
+         this.first = true;
+         this.done = depth == -1;
+      }
+
+      public boolean hasNext()
+      {
+         while (next == null && !done)
+         {
+            if (first)
+            {
+               first = false;
+               if (query.absolute)
+               {
+                  if (match(1))
+                  {
+                     next = navigator.fork();
+                  }
+               }
+               else
+               {
+                  // The evaluation root is the document node and is never selected
+                  enter(1, 1);
+               }
+            }
+            else if (navigator.next() == null)
+            {
+               done = true;
+            }
+            else
+            {
+               int depth = navigator.getDepth() - offset;
+               if (depth <= 1)
+               {
+                  // We left the evaluated subtree
+                  done = true;
+               }
+               else if (match(depth))
+               {
+                  next = navigator.fork();
+               }
+            }
+         }
+         return next != null;
+      }
+
+      /**
+       * Evaluates the element pointed to by the navigator and sets its state.
+       *
+       * @param depth the relative depth of the element
+       * @return true if the element is selected
+       */
+      private boolean match(int depth)
+      {
+         if (dead != -1)
+         {
+            if (depth > dead)
+            {
+               return false;
+            }
+            dead = -1;
+         }
+
+         //
+         int[] positions = counters[depth - 1];
+         long state = 0;
+         boolean selected = false;
+         Step[] steps = query.steps;
+         for (long remaining = states[depth - 1];remaining != 0;remaining &= remaining - 1)
+         {
+            int index = Long.numberOfTrailingZeros(remaining);
+            Step step = steps[index];
+            if (step.descendant)
+            {
+               state |= 1L << index;
+            }
+            if (step.matches(navigator, positions))
+            {
+               if (index == steps.length - 1)
+               {
+                  selected = true;
+               }
+               else
+               {
+                  state |= 1L << (index + 1);
+               }
+            }
+         }
+
+         //
+         enter(depth, state);
+         return selected;
+      }
+
+      /**
+       * Sets the state of the element pointed to by the navigator, when no step can match the descendants of the
+       * element they are not evaluated.
+       *
+       * @param depth the relative depth of the element
+       * @param state the element state
+       */
+      private void enter(int depth, long state)
+      {
+         if (depth == states.length)
+         {
+            long[] tmp1 = new long[depth * 2];
+            System.arraycopy(states, 0, tmp1, 0, depth);
+            states = tmp1;
+            int[][] tmp2 = new int[depth * 2][];
+            System.arraycopy(counters, 0, tmp2, 0, depth);
+            counters = tmp2;
+         }
+         states[depth] = state;
+         if (state == 0)
+         {
+            dead = depth;
+         }
+         else if (query.slots > 0)
+         {
+            if (counters[depth] == null)
+            {
+               counters[depth] = new int[query.slots];
+            }
+            else
+            {
+               Arrays.fill(counters[depth], 0);
+            }
+         }
+      }
+
+      public StaxNavigator<N> next()
+      {
+         if (!hasNext())
+         {
+            throw new NoSuchElementException();
+         }
+         StaxNavigator<N> tmp = next;
+         next = null;
+         return tmp;
+      }
+
+      public void remove()
+      {
+         throw new UnsupportedOperationException();
+      }
+   }
+
+   /**
+    * A step of a query.
+    */
+   static final class Step
+   {
+
+      /** True for a descendant step, false for a child step. */
+      final boolean descendant;
+
+      /** The local name or null for any name. */
+      final String name;
+
+      /** . */
+      final Predicate[] predicates;
+
+      Step(boolean descendant, String name, Predicate[] predicates)
+      {
+         this.descendant = descendant;
+         this.name = name;
+         this.predicates = predicates;
+      }
+
+      /**
+       * Returns true if the element pointed to by the navigator matches the step.
+       *
+       * @param navigator the navigator
+       * @param positions the position counters of the element parent
+       * @return true if the element matches
+       */
+      boolean matches(StaxNavigator<?> navigator, int[] positions)
+      {
+         if (name != null && !name.equals(navigator.getLocalName()))
+         {
+            return false;
+         }
+         for (Predicate predicate : predicates)
+         {
+            if (!predicate.matches(navigator, positions))
+            {
+               return false;
+            }
+         }
+         return true;
+      }
+
+      /**
+       * Returns true if the other step selects the same elements than this step.
+       *
+       * @param that the other step
+       * @return true when the steps are the same
+       */
+      boolean sameAs(Step that)
+      {
+         if (descendant != that.descendant || (name == null ? that.name != null : !name.equals(that.name)) || predicates.length != that.predicates.length)
+         {
+            return false;
+         }
+         for (int i = 0;i < predicates.length;i++)
+         {
+            if (!predicates[i].sameAs(that.predicates[i]))
+            {
+               return false;
+            }
+         }
+         return true;
+      }
+   }
+
+   /**
+    * A step predicate, the predicates of a step are evaluated in order and the evaluation stops at the first
+    * predicate that does not match so that a position counts only the elements matching the previous predicates.
+    */
+   static abstract class Predicate
+   {
+
+      abstract boolean matches(StaxNavigator<?> navigator, int[] positions);
+
+      abstract boolean sameAs(Predicate that);
+
+   }
+
+   static final class AttributePredicate extends Predicate
+   {
+
+      /** . */
+      final String name;
+
+      /** The expected value or null when the attribute only needs to be present. */
+      final String value;
+
+      AttributePredicate(String name, String value)
+      {
+         this.name = name;
+         this.value = value;
+      }
+
+      boolean matches(StaxNavigator<?> navigator, int[] positions)
+      {
+         String attribute = navigator.getAttribute(name);
+         return attribute != null && (value == null || value.equals(attribute));
+      }
+
+      boolean sameAs(Predicate that)
+      {
+         if (that instanceof AttributePredicate)
+         {
+            AttributePredicate attribute = (AttributePredicate)that;
+            return name.equals(attribute.name) && (value == null ? attribute.value == null : value.equals(attribute.value));
+         }
+         return false;
+      }
+   }
+
+   static final class PositionPredicate extends Predicate
+   {
+
+      /** The position counting from 1. */
+      final int position;
+
+      /** The index of the counter of this predicate. */
+      final int slot;
+
+      PositionPredicate(int position, int slot)
+      {
+         this.position = position;
+         this.slot = slot;
+      }
+
+      boolean matches(StaxNavigator<?> navigator, int[] positions)
+      {
+         return ++positions[slot] == position;
+      }
+
+      boolean sameAs(Predicate that)
+      {
+         return that instanceof PositionPredicate && position == ((PositionPredicate)that).position;
+      }
+   }
+
+   /**
+    * Parses the steps of an expression.
+    */
+   static final class Compiler
+   {
+
+      /** . */
+      private final String expression;
+
+      /** . */
+      private int index;
+
+      /** The next position counter index. */
+      int slots;
+
+      Compiler(String expression, int slots)
+      {
+         this.expression = expression;
+         this.index = 0;
+         this.slots = slots;
+      }
+
+      List<Step> compile() throws IllegalArgumentException
+      {
+         List<Step> steps = new ArrayList<Step>();
+         boolean descendant = false;
+         if (expression.startsWith("//"))
+         {
+            index = 2;
+            descendant = true;
+         }
+         else if (expression.startsWith("/"))
+         {
+            index = 1;
+         }
+         while (true)
+         {
+            steps.add(step(descendant));
+            if (index == expression.length())
+            {
+               return steps;
+            }
+            else if (expression.startsWith("//", index))
+            {
+               index += 2;
+               descendant = true;
+            }
+            else if (expression.charAt(index) == '/')
+            {
+               index++;
+               descendant = false;
+            }
+            else
+            {
+               throw failure("Unexpected character");
+            }
+         }
+      }
+
+      private Step step(boolean descendant) throws IllegalArgumentException
+      {
+         String name;
+         if (accept('*'))
+         {
+            name = null;
+         }
+         else
+         {
+            name = name();
+         }
+         List<Predicate> predicates = new ArrayList<Predicate>();
+         while (accept('['))
+         {
+            if (accept('@'))
+            {
+               String attribute = name();
+               String value = accept('=') ? literal() : null;
+               predicates.add(new AttributePredicate(attribute, value));
+            }
+            else
+            {
+               int start = index;
+               while (index < expression.length() && expression.charAt(index) >= '0' && expression.charAt(index) <= '9')
+               {
+                  index++;
+               }
+               int position;
+               try
+               {
+                  position = Integer.parseInt(expression.substring(start, index));
+               }
+               catch (NumberFormatException e)
+               {
+                  index = start;
+                  throw failure("Expected a position or an attribute");
+               }
+               if (position < 1)
+               {
+                  index = start;
+                  throw failure("Positions start at 1");
+               }
+               predicates.add(new PositionPredicate(position, slots++));
+            }
+            if (!accept(']'))
+            {
+               throw failure("Expected ]");
+            }
+         }
+         return new Step(descendant, name, predicates.toArray(new Predicate[predicates.size()]));
+      }
+
+      private String name() throws IllegalArgumentException
+      {
+         int start = index;
+         while (index < expression.length())
+         {
+            char c = expression.charAt(index);
+            if (Character.isLetter(c) || c == '_' || (index > start && (Character.isDigit(c) || c == '-' || c == '.')))
+            {
+               index++;
+            }
+            else
+            {
+               break;
+            }
+         }
+         if (index == start)
+         {
+            throw failure("Expected a name");
+         }
+         return expression.substring(start, index);
+      }
+
+      private String literal() throws IllegalArgumentException
+      {
+         if (index < expression.length())
+         {
+            char quote = expression.charAt(index);
+            if (quote == '\'' || quote == '"')
+            {
+               int end = expression.indexOf(quote, index + 1);
+               if (end != -1)
+               {
+                  String literal = expression.substring(index + 1, end);
+                  index = end + 1;
+                  return literal;
+               }
+            }
+         }
+         throw failure("Expected a quoted value");
+      }
+
+      private boolean accept(char c)
+      {
+         if (index < expression.length() && expression.charAt(index) == c)
+         {
+            index++;
+            return true;
+         }
+         else
+         {
+            return false;
+         }
+      }
+
+      private IllegalArgumentException failure(String message)
+      {
+         return new IllegalArgumentException(message + " at index " + index + " of " + expression);
+      }
+   }
+}
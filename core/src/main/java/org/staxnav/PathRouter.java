@@ -0,0 +1,542 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Dispatches the elements selected by a set of paths to their handlers in a single forward pass. The paths use
+ * the syntax of {@link PathQuery} and a handler is invoked with a navigator forked around each element selected by
+ * its path, as soon as the router reaches the element start.</p>
+ *
+ * <p>The steps of the registered paths are merged in a trie: the paths sharing a prefix share the trie nodes of the
+ * prefix. For each element the router only considers the trie nodes whose parent matched the element parent and the
+ * children of a node are indexed by name, so the cost of an element depends on the paths that can match it and not on
+ * the number of registered paths.</p>
+ *
+ * <p>Paths are registered before routing, a router can then route several documents.</p>
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ * @param <N> the name type
+ */
+public class PathRouter<N>
+{
+
+   /** The root of the absolute paths, it matches the parent of the routing root. */
+   private final Node<N> absolute;
+
+   /** The root of the relative paths, it matches the routing root. */
+   private final Node<N> relative;
+
+   /** The number of registered handlers. */
+   private int registrations;
+
+   /** The number of position counters. */
+   private int slots;
+
+   public PathRouter()
+   {
+      this.absolute = new Node<N>(null);
+      this.relative = new Node<N>(null);
+      this.registrations = 0;
+      this.slots = 0;
+   }
+
+   /**
+    * Registers a handler for the elements selected by a path.
+    *
+    * @param path the path
+    * @param handler the handler
+    * @return this router
+    * @throws NullPointerException if any argument is null
+    * @throws IllegalArgumentException if the path is not valid
+    */
+   public PathRouter<N> register(String path, Parser<N> handler) throws NullPointerException, IllegalArgumentException
+   {
+      if (path == null)
+      {
+         throw new NullPointerException("No null path accepted");
+      }
+      if (handler == null)
+      {
+         throw new NullPointerException("No null handler accepted");
+      }
+      PathQuery.Compiler compiler = new PathQuery.Compiler(path, slots);
+      List<PathQuery.Step> steps = compiler.compile();
+      slots = compiler.slots;
+      Node<N> node = path.startsWith("/") ? absolute : relative;
+      for (PathQuery.Step step : steps)
+      {
+         node = node.add(step);
+      }
+      if (node.handlers.isEmpty())
+      {
+         node.order = registrations;
+      }
+      node.handlers.add(handler);
+      registrations++;
+      return this;
+   }
+
+   /**
+    * Routes the element pointed to by the navigator and its descendants to the handlers of the paths that select
+    * them. The navigator is moved in document order and when the routing is over it points to the last element of the
+    * document or to the first element following the routed subtree. The handlers of an element are invoked by path
+    * registration order.
+    *
+    * @param navigator the navigator
+    * @return the number of handler invocations
+    * @throws NullPointerException if the navigator is null
+    * @throws StaxNavException any StaxNavException
+    */
+   public int route(StaxNavigator<N> navigator) throws NullPointerException, StaxNavException
+   {
+      if (navigator == null)
+      {
+         throw new NullPointerException("No null navigator accepted");
+      }
+      return new Routing<N>(this, navigator).route();
+   }
+
+   /**
+    * A trie node, the step of a node matches the elements whose parent element matched the parent node.
+    */
+   private static class Node<N>
+   {
+
+      /** The step or null for a root. */
+      private final PathQuery.Step step;
+
+      /** The child step nodes indexed by name. */
+      private final Map<String, List<Node<N>>> children;
+
+      /** The wildcard child step nodes. */
+      private final List<Node<N>> anyChildren;
+
+      /** The descendant step nodes indexed by name. */
+      private final Map<String, List<Node<N>>> descendants;
+
+      /** The wildcard descendant step nodes. */
+      private final List<Node<N>> anyDescendants;
+
+      /** The position counters of the children and descendant step nodes. */
+      private int[] slots;
+
+      /** . */
+      private final List<Parser<N>> handlers;
+
+      /** The registration order of the first handler. */
+      private int order;
+
+      private Node(PathQuery.Step step)
+      {
+         this.step = step;
+         this.children = new HashMap<String, List<Node<N>>>();
+         this.anyChildren = new ArrayList<Node<N>>();
+         this.descendants = new HashMap<String, List<Node<N>>>();
+         this.anyDescendants = new ArrayList<Node<N>>();
+         this.slots = new int[0];
+         this.handlers = new ArrayList<Parser<N>>();
+         this.order = -1;
+      }
+
+      private boolean hasDescendants()
+      {
+         return !descendants.isEmpty() || !anyDescendants.isEmpty();
+      }
+
+      private Node<N> add(PathQuery.Step step)
+      {
+         List<Node<N>> nodes;
+         if (step.name == null)
+         {
+            nodes = step.descendant ? anyDescendants : anyChildren;
+         }
+         else
+         {
+            Map<String, List<Node<N>>> map = step.descendant ? descendants : children;
+            nodes = map.get(step.name);
+            if (nodes == null)
+            {
+               nodes = new ArrayList<Node<N>>();
+               map.put(step.name, nodes);
+            }
+         }
+         for (Node<N> node : nodes)
+         {
+            if (node.step.sameAs(step))
+            {
+               return node;
+            }
+         }
+         Node<N> node = new Node<N>(step);
+         nodes.add(node);
+         for (PathQuery.Predicate predicate : step.predicates)
+         {
+            if (predicate instanceof PathQuery.PositionPredicate)
+            {
+               int[] tmp = new int[slots.length + 1];
+               System.arraycopy(slots, 0, tmp, 0, slots.length);
+               tmp[slots.length] = ((PathQuery.PositionPredicate)predicate).slot;
+               slots = tmp;
+            }
+         }
+         return node;
+      }
+   }
+
+   /**
+    * The state of a routing. The state of an element is made of the nodes that matched the element, whose children
+    * and descendant steps can match the element children, and of the inherited nodes whose descendant steps can match
+    * them. The states and the position counters are kept in slots indexed by the depth relative to the routing root
+    * and reused for all the elements of the same depth.
+    */
+   private static class Routing<N>
+   {
+
+      /** . */
+      private final PathRouter<N> router;
+
+      /** . */
+      private final StaxNavigator<N> navigator;
+
+      /** The depth of the parent of the routing root. */
+      private final int offset;
+
+      /** The matched nodes by relative depth. */
+      private Node<N>[][] matched;
+
+      /** . */
+      private int[] matchedCount;
+
+      /** The inherited nodes by relative depth. */
+      private Node<N>[][] inherited;
+
+      /** . */
+      private int[] inheritedCount;
+
+      /** The position counters of the children by relative depth. */
+      private int[][] counters;
+
+      /** The relative depth of the element whose descendants cannot match or -1. */
+      private int dead;
+
+      /** The nodes with handlers that matched the current element. */
+      private Node<N>[] selected;
+
+      /** . */
+      private int selectedCount;
+
+      private Routing(PathRouter<N> router, StaxNavigator<N> navigator)
+      {
+         this.router = router;
+         this.navigator = navigator;
+         this.offset = navigator.getDepth() - 1;
+         this.matched = Routing.<N>newArrays(8);
+         this.matchedCount = new int[8];
+         this.inherited = Routing.<N>newArrays(8);
+         this.inheritedCount = new int[8];
+         this.counters = new int[8][];
+         this.dead = -1;
+         this.selected = Routing.<N>newArray(4);
+         this.selectedCount = 0;
+      }
+
+      private int route() throws StaxNavException
+      {
+         if (offset == -2)
+         {
+            return 0;
+         }
+
+         // The virtual parent of the routing root is matched by the root of the absolute paths
+         matched[0] = Routing.<N>newArray(1);
+         matched[0][0] = router.absolute;
+         matchedCount[0] = 1;
+         inherited[0] = Routing.<N>newArray(4);
+         inheritedCount[0] = 0;
+         counters[0] = new int[router.slots];
+
+         //
+         int count = 0;
+         int depth = 1;
+         while (true)
+         {
+            count += match(depth);
+            if (navigator.next() == null)
+            {
+               break;
+            }
+            depth = navigator.getDepth() - offset;
+            if (depth <= 1)
+            {
+               // We left the routed subtree
+               break;
+            }
+         }
+         return count;
+      }
+
+      /**
+       * Evaluates the element pointed to by the navigator, sets its state and invokes the handlers it selects.
+       *
+       * @param depth the relative depth of the element
+       * @return the number of handler invocations
+       * @throws StaxNavException any StaxNavException
+       */
+      private int match(int depth) throws StaxNavException
+      {
+         if (dead != -1)
+         {
+            if (depth > dead)
+            {
+               return 0;
+            }
+            dead = -1;
+         }
+
+         //
+         if (depth == matched.length)
+         {
+            grow();
+         }
+         matchedCount[depth] = 0;
+         inheritedCount[depth] = 0;
+         selectedCount = 0;
+
+         //
+         String name = navigator.getLocalName();
+         int[] positions = counters[depth - 1];
+         Node<N>[] parents = matched[depth - 1];
+         for (int i = matchedCount[depth - 1] - 1;i >= 0;i--)
+         {
+            Node<N> parent = parents[i];
+            match(depth, parent.children.get(name), positions);
+            match(depth, parent.anyChildren, positions);
+            match(depth, parent.descendants.get(name), positions);
+            match(depth, parent.anyDescendants, positions);
+            inherit(depth, parent);
+         }
+         parents = inherited[depth - 1];
+         for (int i = inheritedCount[depth - 1] - 1;i >= 0;i--)
+         {
+            Node<N> parent = parents[i];
+            if (contains(matched[depth - 1], matchedCount[depth - 1], parent))
+            {
+               // The descendant steps of this node were already evaluated
+               continue;
+            }
+            match(depth, parent.descendants.get(name), positions);
+            match(depth, parent.anyDescendants, positions);
+            inherit(depth, parent);
+         }
+
+         // The routing root also matches the root of the relative paths
+         if (depth == 1)
+         {
+            add(depth, router.relative);
+         }
+
+         //
+         if (matchedCount[depth] == 0 && inheritedCount[depth] == 0)
+         {
+            dead = depth;
+         }
+         else
+         {
+            enter(depth);
+         }
+
+         //
+         return dispatch();
+      }
+
+      private void match(int depth, List<Node<N>> nodes, int[] positions)
+      {
+         if (nodes != null)
+         {
+            for (int i = 0, size = nodes.size();i < size;i++)
+            {
+               Node<N> node = nodes.get(i);
+               if (node.step.matches(navigator, positions))
+               {
+                  add(depth, node);
+                  if (!node.handlers.isEmpty())
+                  {
+                     select(node);
+                  }
+               }
+            }
+         }
+      }
+
+      private void add(int depth, Node<N> node)
+      {
+         int count = matchedCount[depth];
+         Node<N>[] nodes = matched[depth];
+         if (nodes == null || count == nodes.length)
+         {
+            matched[depth] = nodes = copy(nodes, count);
+         }
+         nodes[count] = node;
+         matchedCount[depth] = count + 1;
+      }
+
+      private void inherit(int depth, Node<N> node)
+      {
+         if (node.hasDescendants())
+         {
+            int count = inheritedCount[depth];
+            Node<N>[] nodes = inherited[depth];
+            if (contains(nodes, count, node))
+            {
+               return;
+            }
+            if (nodes == null || count == nodes.length)
+            {
+               inherited[depth] = nodes = copy(nodes, count);
+            }
+            nodes[count] = node;
+            inheritedCount[depth] = count + 1;
+         }
+      }
+
+      private void select(Node<N> node)
+      {
+         if (selectedCount == selected.length)
+         {
+            selected = copy(selected, selectedCount);
+         }
+
+         // Keep the selection sorted by registration order
+         int i = selectedCount++;
+         while (i > 0 && selected[i - 1].order > node.order)
+         {
+            selected[i] = selected[i - 1];
+            i--;
+         }
+         selected[i] = node;
+      }
+
+      /**
+       * Resets the position counters of the steps that can match the children of the element.
+       *
+       * @param depth the relative depth of the element
+       */
+      private void enter(int depth)
+      {
+         int[] positions = counters[depth];
+         if (positions == null)
+         {
+            counters[depth] = new int[router.slots];
+         }
+         else
+         {
+            for (int i = matchedCount[depth] - 1;i >= 0;i--)
+            {
+               for (int slot : matched[depth][i].slots)
+               {
+                  positions[slot] = 0;
+               }
+            }
+            for (int i = inheritedCount[depth] - 1;i >= 0;i--)
+            {
+               for (int slot : inherited[depth][i].slots)
+               {
+                  positions[slot] = 0;
+               }
+            }
+         }
+      }
+
+      private int dispatch() throws StaxNavException
+      {
+         int count = 0;
+         for (int i = 0;i < selectedCount;i++)
+         {
+            for (Parser<N> handler : selected[i].handlers)
+            {
+               handler.parse(navigator.fork());
+               count++;
+            }
+            selected[i] = null;
+         }
+         return count;
+      }
+
+      private void grow()
+      {
+         int length = matched.length * 2;
+         Node<N>[][] tmp1 = Routing.<N>newArrays(length);
+         System.arraycopy(matched, 0, tmp1, 0, matched.length);
+         matched = tmp1;
+         int[] tmp2 = new int[length];
+         System.arraycopy(matchedCount, 0, tmp2, 0, matchedCount.length);
+         matchedCount = tmp2;
+         Node<N>[][] tmp3 = Routing.<N>newArrays(length);
+         System.arraycopy(inherited, 0, tmp3, 0, inherited.length);
+         inherited = tmp3;
+         int[] tmp4 = new int[length];
+         System.arraycopy(inheritedCount, 0, tmp4, 0, inheritedCount.length);
+         inheritedCount = tmp4;
+         int[][] tmp5 = new int[length][];
+         System.arraycopy(counters, 0, tmp5, 0, counters.length);
+         counters = tmp5;
+      }
+
+      private static <N> boolean contains(Node<N>[] nodes, int count, Node<N> node)
+      {
+         for (int i = 0;i < count;i++)
+         {
+            if (nodes[i] == node)
+            {
+               return true;
+            }
+         }
+         return false;
+      }
+
+      private static <N> Node<N>[] copy(Node<N>[] nodes, int count)
+      {
+         Node<N>[] tmp = newArray(Math.max(4, count * 2));
+         if (nodes != null)
+         {
+            System.arraycopy(nodes, 0, tmp, 0, count);
+         }
+         return tmp;
+      }
+
+      @SuppressWarnings("unchecked")
+      private static <N> Node<N>[] newArray(int length)
+      {
+         return (Node<N>[])new Node<?>[length];
+      }
+
+      @SuppressWarnings("unchecked")
+      private static <N> Node<N>[][] newArrays(int length)
+      {
+         return (Node<N>[][])new Node<?>[length][];
+      }
+   }
+}
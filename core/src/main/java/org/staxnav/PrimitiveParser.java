@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+/**
+ * Parses a trimmed range of chars to a primitive value. The value is returned as a <code>long</code>, so the primitive
+ * content accessors share the trimming and the error handling without boxing the value.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+abstract class PrimitiveParser
+{
+
+   /** . */
+   static final PrimitiveParser INT = new PrimitiveParser()
+   {
+      @Override
+      long parse(CharSequence s, int from, int to) throws IllegalArgumentException
+      {
+         return Chars.parseInt(s, from, to);
+      }
+   };
+
+   /** . */
+   static final PrimitiveParser LONG = new PrimitiveParser()
+   {
+      @Override
+      long parse(CharSequence s, int from, int to) throws IllegalArgumentException
+      {
+         return Chars.parseLong(s, from, to);
+      }
+   };
+
+   /** The bits of the <code>double</code> value, see {@link Double#longBitsToDouble(long)}. */
+   static final PrimitiveParser DOUBLE = new PrimitiveParser()
+   {
+      @Override
+      long parse(CharSequence s, int from, int to) throws IllegalArgumentException
+      {
+         return Double.doubleToRawLongBits(Chars.parseDouble(s, from, to));
+      }
+   };
+
+   /** <code>1</code> for true and <code>0</code> for false, see {@link Chars#parseBoolean(CharSequence, int, int)}. */
+   static final PrimitiveParser BOOLEAN = new PrimitiveParser()
+   {
+      @Override
+      long parse(CharSequence s, int from, int to) throws IllegalArgumentException
+      {
+         return Chars.parseBoolean(s, from, to) ? 1 : 0;
+      }
+   };
+
+   /**
+    * Parses a range of chars.
+    *
+    * @param s the chars
+    * @param from the range start
+    * @param to the range end
+    * @return the parsed value
+    * @throws IllegalArgumentException if the range is not a valid value
+    */
+   abstract long parse(CharSequence s, int from, int to) throws IllegalArgumentException;
+}
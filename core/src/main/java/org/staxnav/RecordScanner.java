@@ -0,0 +1,439 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <p>Finds the boundaries of the children of the document element, the records, with a byte level scan of the
+ * document. The scan recognizes the markup that can contain a <code>&lt;</code> or a <code>&gt;</code> character
+ * that does not delimit an element: comments, CDATA sections, processing instructions, quoted attribute values and
+ * the document type declaration. The document must use an encoding where these characters are encoded as single
+ * ASCII bytes, such as UTF-8 or ISO-8859-1.</p>
+ *
+ * <p>The document is scanned incrementally by blocks, the found records are appended to the boundaries that the
+ * caller drains. The bytes preceding the first record are retained so that each record can be parsed with the
+ * prolog and the document element start tag of the document.</p>
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+final class RecordScanner
+{
+
+   /** . */
+   private static final int TEXT = 0;
+
+   /** After a <code>&lt;</code>. */
+   private static final int MARKUP = 1;
+
+   /** . */
+   private static final int START_TAG = 2;
+
+   /** In a quoted attribute value. */
+   private static final int QUOTED = 3;
+
+   /** . */
+   private static final int END_TAG = 4;
+
+   /** In a processing instruction or the XML declaration. */
+   private static final int PI = 5;
+
+   /** After <code>&lt;!</code>. */
+   private static final int BANG = 6;
+
+   /** After <code>&lt;!-</code>. */
+   private static final int BANG_DASH = 7;
+
+   /** . */
+   private static final int COMMENT = 8;
+
+   /** After <code>&lt;![</code>, the CDATA keyword is not checked. */
+   private static final int CDATA_OPEN = 9;
+
+   /** . */
+   private static final int CDATA = 10;
+
+   /** In a markup declaration such as the document type declaration. */
+   private static final int DECLARATION = 11;
+
+   /** . */
+   private int state;
+
+   /** The quote of the current quoted value. */
+   private byte quote;
+
+   /** The state to return to after a quoted value. */
+   private int quoted;
+
+   /** The number of consecutive dashes or brackets before a <code>&gt;</code>. */
+   private int run;
+
+   /** The nesting of the internal subset of a document type declaration. */
+   private int subset;
+
+   /** True when the last byte of a start tag was a <code>/</code>. */
+   private boolean slash;
+
+   /** The offset of the current tag. */
+   private long tag;
+
+   /** . */
+   private int depth;
+
+   /** The offset of the current record. */
+   private long record;
+
+   /** The offset of the document element start tag. */
+   private long rootTag;
+
+   /** The offset of the end of the document element start tag or -1. */
+   private long prologEnd;
+
+   /** The bytes preceding the first record until the end of the document element start tag is found. */
+   private ByteArrayOutputStream head;
+
+   /** The prolog and the document element start tag. */
+   private byte[] prolog;
+
+   /** . */
+   private String rootName;
+
+   /** The record boundaries as (start, end) pairs. */
+   long[] boundaries;
+
+   /** The number of boundaries. */
+   int size;
+
+   /** True when the end of the document element was found. */
+   private boolean done;
+
+   RecordScanner()
+   {
+      this.state = TEXT;
+      this.depth = 0;
+      this.prologEnd = -1;
+      this.head = new ByteArrayOutputStream();
+      this.boundaries = new long[64];
+      this.size = 0;
+      this.done = false;
+   }
+
+   /**
+    * Scans a block of the document.
+    *
+    * @param buffer the buffer, its position and limit are ignored
+    * @param off the offset of the block in the buffer
+    * @param len the length of the block
+    * @param position the position of the block in the document
+    * @throws StaxNavException when the document is not well formed
+    */
+   void scan(ByteBuffer buffer, int off, int len, long position) throws StaxNavException
+   {
+      buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+      int end = off + len;
+      for (int i = off;i < end && !done;i++)
+      {
+         if (state == TEXT)
+         {
+            // The text is skipped until the next markup
+            i = Bytes.indexOf(buffer, i, end, (byte)'<');
+            if (i == -1)
+            {
+               break;
+            }
+            tag = position + i - off;
+            state = MARKUP;
+            continue;
+         }
+         byte b = buffer.get(i);
+         switch (state)
+         {
+            case MARKUP:
+               if (b == '/')
+               {
+                  state = END_TAG;
+               }
+               else if (b == '?')
+               {
+                  state = PI;
+                  run = 0;
+               }
+               else if (b == '!')
+               {
+                  state = BANG;
+               }
+               else
+               {
+                  state = START_TAG;
+                  slash = false;
+               }
+               break;
+            case START_TAG:
+               if (b == '"' || b == '\'')
+               {
+                  quote = b;
+                  quoted = START_TAG;
+                  state = QUOTED;
+               }
+               else if (b == '>')
+               {
+                  startTag(position + i - off + 1);
+                  state = TEXT;
+               }
+               else
+               {
+                  slash = b == '/';
+               }
+               break;
+            case QUOTED:
+               if (b == quote)
+               {
+                  state = quoted;
+               }
+               break;
+            case END_TAG:
+               if (b == '>')
+               {
+                  endTag(position + i - off + 1);
+                  state = TEXT;
+               }
+               break;
+            case PI:
+               if (b == '>' && run == 1)
+               {
+                  state = TEXT;
+               }
+               run = b == '?' ? 1 : 0;
+               break;
+            case BANG:
+               if (b == '-')
+               {
+                  state = BANG_DASH;
+               }
+               else if (b == '[')
+               {
+                  state = CDATA_OPEN;
+               }
+               else
+               {
+                  state = DECLARATION;
+                  subset = 0;
+               }
+               break;
+            case BANG_DASH:
+               if (b != '-')
+               {
+                  throw new StaxNavException("Malformed comment at offset " + tag);
+               }
+               state = COMMENT;
+               run = 0;
+               break;
+            case COMMENT:
+               if (b == '>' && run >= 2)
+               {
+                  state = TEXT;
+               }
+               run = b == '-' ? run + 1 : 0;
+               break;
+            case CDATA_OPEN:
+               if (b == '[')
+               {
+                  state = CDATA;
+                  run = 0;
+               }
+               break;
+            case CDATA:
+               if (b == '>' && run >= 2)
+               {
+                  state = TEXT;
+               }
+               run = b == ']' ? run + 1 : 0;
+               break;
+            case DECLARATION:
+               if (b == '"' || b == '\'')
+               {
+                  quote = b;
+                  quoted = DECLARATION;
+                  state = QUOTED;
+               }
+               else if (b == '[')
+               {
+                  subset++;
+               }
+               else if (b == ']')
+               {
+                  subset--;
+               }
+               else if (b == '>' && subset == 0)
+               {
+                  state = TEXT;
+               }
+               break;
+            default:
+               throw new AssertionError();
+         }
+      }
+
+      //
+      if (head != null)
+      {
+         if (prologEnd != -1)
+         {
+            retain(buffer, off, (int)(prologEnd - position));
+            prolog = head.toByteArray();
+            rootName = name(prolog, (int)rootTag + 1);
+            head = null;
+         }
+         else
+         {
+            retain(buffer, off, len);
+         }
+      }
+   }
+
+   private void retain(ByteBuffer buffer, int off, int len)
+   {
+      byte[] bytes = new byte[len];
+      buffer.position(off);
+      buffer.get(bytes);
+      head.write(bytes, 0, len);
+   }
+
+   private void startTag(long end)
+   {
+      if (depth == 0)
+      {
+         if (slash)
+         {
+            // An empty document element
+            done = true;
+         }
+         else
+         {
+            rootTag = tag;
+            prologEnd = end;
+            depth = 1;
+         }
+      }
+      else
+      {
+         if (depth == 1)
+         {
+            record = tag;
+         }
+         if (slash)
+         {
+            if (depth == 1)
+            {
+               add(record, end);
+            }
+         }
+         else
+         {
+            depth++;
+         }
+      }
+   }
+
+   private void endTag(long end)
+   {
+      if (depth == 0)
+      {
+         throw new StaxNavException("Unexpected end tag at offset " + tag);
+      }
+      if (--depth == 1)
+      {
+         add(record, end);
+      }
+      else if (depth == 0)
+      {
+         done = true;
+      }
+   }
+
+   private void add(long start, long end)
+   {
+      if (size == boundaries.length)
+      {
+         long[] tmp = new long[size * 2];
+         System.arraycopy(boundaries, 0, tmp, 0, size);
+         boundaries = tmp;
+      }
+      boundaries[size++] = start;
+      boundaries[size++] = end;
+   }
+
+   private static String name(byte[] bytes, int from)
+   {
+      int to = from;
+      while (to < bytes.length)
+      {
+         byte b = bytes[to];
+         if (b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '/' || b == '>')
+         {
+            break;
+         }
+         to++;
+      }
+      try
+      {
+         return new String(bytes, from, to - from, "UTF-8");
+      }
+      catch (UnsupportedEncodingException e)
+      {
+         throw new AssertionError(e);
+      }
+   }
+
+   /**
+    * Returns the prolog and the document element start tag, it is available once the document element start tag
+    * has been scanned.
+    *
+    * @return the prolog bytes or null
+    */
+   byte[] getProlog()
+   {
+      return prolog;
+   }
+
+   /**
+    * Returns the qualified name of the document element.
+    *
+    * @return the document element name or null
+    */
+   String getRootName()
+   {
+      return rootName;
+   }
+
+   /**
+    * Returns true when the end of the document element was found.
+    *
+    * @return true when the scan is over
+    */
+   boolean isDone()
+   {
+      return done;
+   }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import org.codehaus.stax2.XMLStreamReader2;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Uses the Stax2 API when the stream implements it: the stream skips elements without reporting their events and
+ * decodes base64 content. The Stax2 API is an optional dependency, this
+ * class must not be used when it is not {@link #AVAILABLE}.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+final class Stax2StreamSupport extends StreamSupport
+{
+
+   /** True when the Stax2 API is on the classpath. */
+   static final boolean AVAILABLE;
+
+   static
+   {
+      boolean available;
+      try
+      {
+         Class.forName("org.codehaus.stax2.XMLStreamReader2", false, Stax2StreamSupport.class.getClassLoader());
+         available = true;
+      }
+      catch (Throwable ignore)
+      {
+         available = false;
+      }
+      AVAILABLE = available;
+   }
+
+   /** . */
+   static final Stax2StreamSupport INSTANCE = new Stax2StreamSupport();
+
+   private Stax2StreamSupport()
+   {
+   }
+
+   /**
+    * Returns true if the stream implements the Stax2 API.
+    *
+    * @param stream the stream
+    * @return true when the stream is a Stax2 stream
+    */
+   static boolean isStax2(XMLStreamReader stream)
+   {
+      return stream instanceof XMLStreamReader2;
+   }
+
+   @Override
+   void skipElement(XMLStreamReader stream) throws XMLStreamException
+   {
+      ((XMLStreamReader2)stream).skipElement();
+   }
+
+   @Override
+   int readElementAsBinary(XMLStreamReader stream, BinaryEncoding encoding, OutputStream out) throws IllegalStateException, IllegalArgumentException, XMLStreamException, IOException
+   {
+      if (encoding != BinaryEncoding.BASE64)
+      {
+         return super.readElementAsBinary(stream, encoding, out);
+      }
+      XMLStreamReader2 typed = (XMLStreamReader2)stream;
+      byte[] buffer = new byte[512];
+      int count = 0;
+      try
+      {
+         for (int length = typed.readElementAsBinary(buffer, 0, buffer.length);length != -1;length = typed.readElementAsBinary(buffer, 0, buffer.length))
+         {
+            out.write(buffer, 0, length);
+            count += length;
+         }
+         return count;
+      }
+      catch (XMLStreamException e)
+      {
+         // The typed access rejects a mixed content when it reaches the child start, report it like the portable code
+         if (stream.getEventType() == XMLStreamConstants.START_ELEMENT)
+         {
+            throw new IllegalStateException("No content available for decoding");
+         }
+         throw e;
+      }
+   }
+}
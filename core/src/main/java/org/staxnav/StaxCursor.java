@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import java.util.Set;
+
+/**
+ * <p>A forward only variant of the {@link StaxNavigator} API for reading large documents. A cursor does not retain
+ * the elements it moves past: it cannot be forked and the elements visited by a failed navigation are consumed, for
+ * instance navigating to the next element after a failed sibling navigation does not visit the descendants of the
+ * current element. The current element remains the same after a failed navigation.</p>
+ *
+ * <p>The navigation methods have the same meaning as the methods of {@link StaxNavigator} otherwise, except
+ * {@link #descendant(Object)} that only searches the subtree of the current element.</p>
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ * @param <N> the name type
+ */
+public interface StaxCursor<N>
+{
+
+   /**
+    * Returns the current element name.
+    *
+    * @return the element name
+    */
+   N getName();
+
+   /**
+    * Returns the naming used for this cursor.
+    *
+    * @return the naming
+    */
+   Naming<N> getNaming();
+
+   /**
+    * Returns the local name of the current element.
+    *
+    * @return the local name
+    */
+   String getLocalName();
+
+   /**
+    * Returns the location of the current element or null when it is not captured.
+    *
+    * @return the location
+    */
+   Location getLocation();
+
+   /**
+    * Returns the depth of the current element, the document element has a depth of one.
+    *
+    * @return the depth
+    */
+   int getDepth();
+
+   /**
+    * Returns the content of the current element or null when it has no textual content.
+    *
+    * @return the content
+    */
+   String getContent();
+
+   /**
+    * Configures the trimming of the content.
+    *
+    * @param trimContent true to trim the content
+    */
+   void setTrimContent(boolean trimContent);
+
+   /**
+    * Returns the trimming configuration.
+    *
+    * @return the trim content value
+    */
+   boolean getTrimContent();
+
+   /**
+    * Parses the trimmed content of the current element.
+    *
+    * @param valueType the value type
+    * @param <V> the value type
+    * @return the parsed value
+    * @throws IllegalStateException if the current element has no content
+    * @throws NullPointerException if the value type is null
+    * @throws TypeConversionException if the content cannot be parsed
+    */
+   <V> V parseContent(ValueType<V> valueType) throws IllegalStateException, NullPointerException, TypeConversionException;
+
+   /**
+    * Parses the trimmed content of the current element as an int without creating any object.
+    *
+    * @return the int value
+    * @throws IllegalStateException if the current element has no content
+    * @throws TypeConversionException if the content cannot be parsed
+    */
+   int getIntContent() throws IllegalStateException, TypeConversionException;
+
+   /**
+    * Parses the trimmed content of the current element as a long without creating any object.
+    *
+    * @return the long value
+    * @throws IllegalStateException if the current element has no content
+    * @throws TypeConversionException if the content cannot be parsed
+    */
+   long getLongContent() throws IllegalStateException, TypeConversionException;
+
+   /**
+    * Parses the trimmed content of the current element as a double without creating any object.
+    *
+    * @return the double value
+    * @throws IllegalStateException if the current element has no content
+    * @throws TypeConversionException if the content cannot be parsed
+    */
+   double getDoubleContent() throws IllegalStateException, TypeConversionException;
+
+   /**
+    * Parses the trimmed content of the current element as a boolean without creating any object.
+    *
+    * @return the boolean value
+    * @throws IllegalStateException if the current element has no content
+    * @throws TypeConversionException if the content cannot be parsed
+    */
+   boolean getBooleanContent() throws IllegalStateException, TypeConversionException;
+
+   /**
+    * Returns true if the current element has the specified name, otherwise navigates to the following element
+    * having the name.
+    *
+    * @param name the element name
+    * @return true if the desired element is reached
+    * @throws NullPointerException if the name is null
+    * @throws StaxNavException any StaxNavException
+    */
+   boolean find(N name) throws NullPointerException, StaxNavException;
+
+   /**
+    * Navigates to the next element according to the axis argument and returns its name or null if no such element
+    * exists.
+    *
+    * @param axis the navigation axis
+    * @return the element name
+    * @throws NullPointerException if the axis is null
+    * @throws StaxNavException any StaxNavException
+    */
+   N navigate(Axis axis) throws NullPointerException, StaxNavException;
+
+   /**
+    * Attempts to navigate to the next element according to the axis argument having the specified name.
+    *
+    * @param axis the navigation axis
+    * @param name the desired element name
+    * @return true if the desired element is reached
+    * @throws NullPointerException if any argument is null
+    * @throws StaxNavException any StaxNavException
+    */
+   boolean navigate(Axis axis, N name) throws NullPointerException, StaxNavException;
+
+   /**
+    * Navigates to the next element and returns its name or null if the end of the document is reached.
+    *
+    * @return the element name
+    * @throws StaxNavException any StaxNavException
+    */
+   N next() throws StaxNavException;
+
+   /**
+    * Attempts to navigate to the next element when it has the specified name, the next element remains the next
+    * element when it does not have the name.
+    *
+    * @param name the desired element name
+    * @return true if the desired element is reached
+    * @throws NullPointerException if the name is null
+    * @throws StaxNavException any StaxNavException
+    */
+   boolean next(N name) throws NullPointerException, StaxNavException;
+
+   /**
+    * Attempts to navigate to the next element when its name belongs to the set of specified names, the next element
+    * remains the next element when it does not.
+    *
+    * @param names the set of desired element names
+    * @return the matched name
+    * @throws NullPointerException if the names argument is null
+    * @throws StaxNavException any StaxNavException
+    */
+   N next(Set<N> names) throws NullPointerException, StaxNavException;
+
+   /**
+    * Attempts to navigate to the first child and returns its name or null if no such child exists.
+    *
+    * @return the child name
+    * @throws StaxNavException any StaxNavException
+    */
+   N child() throws StaxNavException;
+
+   /**
+    * Attempts to navigate to the first child having the specified name.
+    *
+    * @param name the child name
+    * @return true if the desired element is reached
+    * @throws NullPointerException if the name is null
+    * @throws StaxNavException any StaxNavException
+    */
+   boolean child(N name) throws NullPointerException, StaxNavException;
+
+   /**
+    * Attempts to navigate to the next sibling and returns its name or null if no such sibling exists.
+    *
+    * @return the sibling name
+    * @throws StaxNavException any StaxNavException
+    */
+   N sibling() throws StaxNavException;
+
+   /**
+    * Attempts to navigate to the next sibling having the specified name.
+    *
+    * @param name the sibling name
+    * @return true if the desired element is reached
+    * @throws NullPointerException if the name is null
+    * @throws StaxNavException any StaxNavException
+    */
+   boolean sibling(N name) throws NullPointerException, StaxNavException;
+
+   /**
+    * Attempts to navigate to the first descendant having the specified name and returns the depth difference with
+    * the current element or -1 when no such descendant exists. Unlike {@link StaxNavigator#descendant(Object)} only
+    * the subtree of the current element is searched, the elements following the current element are never reached.
+    *
+    * @param name the descendant name
+    * @return the depth difference or -1
+    * @throws NullPointerException if the name is null
+    * @throws StaxNavException any StaxNavException
+    */
+   int descendant(N name) throws NullPointerException, StaxNavException;
+
+   /**
+    * Returns an attribute of the current element or null if such attribute does not exist.
+    *
+    * @param name the attribute name
+    * @return the attribute value
+    * @throws NullPointerException if the name is null
+    */
+   String getAttribute(String name) throws NullPointerException;
+
+   /**
+    * Returns an attribute of the current element or null if such attribute does not exist.
+    *
+    * @param name the attribute name
+    * @return the attribute value
+    * @throws NullPointerException if the name is null
+    */
+   String getAttribute(QName name) throws NullPointerException;
+
+}
@@ -0,0 +1,772 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.Set;
+
+/**
+ * <p>Implements the cursor with a record per depth: the records are reused when the navigation returns to their depth
+ * so the navigation itself does not create objects once the cursor has reached the maximum depth of the document,
+ * the objects created by the stream reader aside. The content of the current element is buffered in the builder of
+ * its record and the strings are created only when they are requested.</p>
+ *
+ * <p>The locations are not captured by default since most stream readers create a location object at each call,
+ * see {@link #setLocationCapture(LocationCapture)}.</p>
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ * @param <N> the name type
+ */
+public class StaxCursorImpl<N> implements StaxCursor<N>
+{
+
+   /** . */
+   private final Naming<N> naming;
+
+   /** . */
+   private final XMLStreamReader stream;
+
+   /** . */
+   private final StreamSupport support;
+
+   /** The records indexed by depth. */
+   private Slot[] slots;
+
+   /** The depth of the current element or 0 before the document element is read. */
+   private int depth;
+
+   /** The number of elements whose start was read and whose end was not read yet by the stream. */
+   private int open;
+
+   /** . */
+   private boolean trimContent;
+
+   /** . */
+   private LocationCapture locationCapture;
+
+   /** The public id of the compact locations. */
+   private String publicId;
+
+   /** The system id of the compact locations. */
+   private String systemId;
+
+   public StaxCursorImpl(Naming<N> naming, XMLStreamReader stream) throws NullPointerException
+   {
+      if (naming == null)
+      {
+         throw new NullPointerException("No null naming accepted");
+      }
+      if (stream == null)
+      {
+         throw new NullPointerException("No null stream accepted");
+      }
+
+      //
+      this.naming = naming;
+      this.stream = stream;
+      this.support = StreamSupport.get(stream);
+      this.slots = new Slot[8];
+      this.depth = 0;
+      this.open = 0;
+      this.trimContent = false;
+      this.locationCapture = LocationCapture.NONE;
+   }
+
+   public N getName()
+   {
+      // The naming is the one of the cursor
+      @SuppressWarnings("unchecked")
+      N name = (N)current().name;
+      return name;
+   }
+
+   public Naming<N> getNaming()
+   {
+      return naming;
+   }
+
+   public String getLocalName()
+   {
+      return current().localPart;
+   }
+
+   public Location getLocation()
+   {
+      Slot slot = current();
+      if (slot.location != null)
+      {
+         return slot.location;
+      }
+      else if (slot.line != -2)
+      {
+         return new StaxNavigatorImpl.CompactLocation(slot.line, slot.column, slot.offset, publicId, systemId);
+      }
+      else
+      {
+         return null;
+      }
+   }
+
+   public int getDepth()
+   {
+      current();
+      return depth;
+   }
+
+   /**
+    * Configures how the location of the elements is captured, the default value is {@link LocationCapture#NONE}.
+    * The configuration applies to the elements that have not been read yet.
+    *
+    * @param locationCapture the location capture
+    * @throws NullPointerException if the argument is null
+    */
+   public void setLocationCapture(LocationCapture locationCapture) throws NullPointerException
+   {
+      if (locationCapture == null)
+      {
+         throw new NullPointerException("No null location capture accepted");
+      }
+      this.locationCapture = locationCapture;
+   }
+
+   /**
+    * Returns the location capture configuration.
+    *
+    * @return the location capture
+    */
+   public LocationCapture getLocationCapture()
+   {
+      return locationCapture;
+   }
+
+   public void setTrimContent(boolean trimContent)
+   {
+      this.trimContent = trimContent;
+   }
+
+   public boolean getTrimContent()
+   {
+      return trimContent;
+   }
+
+   public String getContent()
+   {
+      Slot slot = current();
+      if (!slot.text)
+      {
+         return null;
+      }
+      else if (trimContent)
+      {
+         return slot.getTrimmedContent();
+      }
+      else
+      {
+         return slot.getContent();
+      }
+   }
+
+   public <V> V parseContent(ValueType<V> valueType) throws IllegalStateException, NullPointerException, TypeConversionException
+   {
+      if (valueType == null)
+      {
+         throw new NullPointerException("No null value type accepted");
+      }
+      CharSequence content = getContentSlot().getTrimmedContent();
+      try
+      {
+         return valueType.parse(content);
+      }
+      catch (Exception e)
+      {
+         if (e instanceof TypeConversionException)
+         {
+            throw (TypeConversionException)e;
+         }
+         else
+         {
+            throw new TypeConversionException(getLocation(), e, "Could not parse string value " + content);
+         }
+      }
+   }
+
+   public int getIntContent() throws IllegalStateException, TypeConversionException
+   {
+      return (int)parsePrimitiveContent(PrimitiveParser.INT);
+   }
+
+   public long getLongContent() throws IllegalStateException, TypeConversionException
+   {
+      return parsePrimitiveContent(PrimitiveParser.LONG);
+   }
+
+   public double getDoubleContent() throws IllegalStateException, TypeConversionException
+   {
+      return Double.longBitsToDouble(parsePrimitiveContent(PrimitiveParser.DOUBLE));
+   }
+
+   public boolean getBooleanContent() throws IllegalStateException, TypeConversionException
+   {
+      return parsePrimitiveContent(PrimitiveParser.BOOLEAN) != 0;
+   }
+
+   private long parsePrimitiveContent(PrimitiveParser parser) throws IllegalStateException, TypeConversionException
+   {
+      StringBuilder content = getContentSlot().content;
+      int from = Chars.trimStart(content, 0, content.length());
+      int to = Chars.trimEnd(content, from, content.length());
+      try
+      {
+         return parser.parse(content, from, to);
+      }
+      catch (IllegalArgumentException e)
+      {
+         throw new TypeConversionException(getLocation(), e, "Could not parse string value " + content);
+      }
+   }
+
+   /**
+    * Returns the record of the current element when it has a content.
+    *
+    * @return the record
+    * @throws IllegalStateException if the current element has no content
+    */
+   private Slot getContentSlot() throws IllegalStateException
+   {
+      Slot slot = current();
+      if (!slot.text)
+      {
+         throw new IllegalStateException("No content available for parsing");
+      }
+      return slot;
+   }
+
+   public boolean find(N name) throws NullPointerException, StaxNavException
+   {
+      if (name == null)
+      {
+         throw new NullPointerException("No null name accepted");
+      }
+      return name.equals(getName()) || navigate(Axis.FOLLOWING, name);
+   }
+
+   public N navigate(Axis axis) throws NullPointerException, StaxNavException
+   {
+      if (axis == null)
+      {
+         throw new NullPointerException("No null axis accepted");
+      }
+      return _navigate(axis, null) ? getName() : null;
+   }
+
+   public boolean navigate(Axis axis, N name) throws NullPointerException, StaxNavException
+   {
+      if (axis == null)
+      {
+         throw new NullPointerException("No null axis accepted");
+      }
+      if (name == null)
+      {
+         throw new NullPointerException("No null name accepted");
+      }
+      return _navigate(axis, name);
+   }
+
+   public N next() throws StaxNavException
+   {
+      return navigate(Axis.NEXT);
+   }
+
+   public boolean next(N name) throws NullPointerException, StaxNavException
+   {
+      return navigate(Axis.NEXT, name);
+   }
+
+   public N next(Set<N> names) throws NullPointerException, StaxNavException
+   {
+      if (names == null)
+      {
+         throw new NullPointerException("No null names accepted");
+      }
+      current();
+      try
+      {
+         if (start(0) != -1)
+         {
+            N next = naming.getName(stream);
+            if (names.contains(next))
+            {
+               read(next);
+               return next;
+            }
+         }
+         return null;
+      }
+      catch (XMLStreamException e)
+      {
+         throw new StaxNavException(e);
+      }
+   }
+
+   public N child() throws StaxNavException
+   {
+      return navigate(Axis.CHILD);
+   }
+
+   public boolean child(N name) throws NullPointerException, StaxNavException
+   {
+      return navigate(Axis.CHILD, name);
+   }
+
+   public N sibling() throws StaxNavException
+   {
+      return navigate(Axis.FOLLOWING_SIBLING);
+   }
+
+   public boolean sibling(N name) throws NullPointerException, StaxNavException
+   {
+      return navigate(Axis.FOLLOWING_SIBLING, name);
+   }
+
+   public int descendant(N name) throws NullPointerException, StaxNavException
+   {
+      if (name == null)
+      {
+         throw new NullPointerException("No null name accepted");
+      }
+      current();
+      try
+      {
+         // The descendants were consumed when the end of the current element was read
+         int from = depth;
+         if (open == from)
+         {
+            while (start(from) != -1)
+            {
+               N descendant = naming.getName(stream);
+               if (name.equals(descendant))
+               {
+                  read(descendant);
+                  return depth - from;
+               }
+               enter();
+            }
+         }
+         return -1;
+      }
+      catch (XMLStreamException e)
+      {
+         throw new StaxNavException(e);
+      }
+   }
+
+   public String getAttribute(String name) throws NullPointerException
+   {
+      if (name == null)
+      {
+         throw new NullPointerException("No null attribute name expected");
+      }
+      return current().getAttribute(XMLConstants.NULL_NS_URI, name);
+   }
+
+   public String getAttribute(QName name) throws NullPointerException
+   {
+      if (name == null)
+      {
+         throw new NullPointerException("No null attribute name expected");
+      }
+      return current().getAttribute(name.getNamespaceURI(), name.getLocalPart());
+   }
+
+   private boolean _navigate(Axis axis, N name) throws StaxNavException
+   {
+      current();
+      try
+      {
+         switch (axis)
+         {
+            case SELF:
+               return name == null || name.equals(getName());
+            case NEXT:
+               return _next(name);
+            case CHILD:
+               return _child(name);
+            case FOLLOWING_SIBLING:
+               return _sibling(name);
+            case FOLLOWING:
+               return _following(name);
+            default:
+               throw new AssertionError();
+         }
+      }
+      catch (XMLStreamException e)
+      {
+         throw new StaxNavException(e);
+      }
+   }
+
+   private boolean _next(N name) throws XMLStreamException
+   {
+      if (start(0) != -1)
+      {
+         N next = naming.getName(stream);
+         if (name == null || name.equals(next))
+         {
+            read(next);
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private boolean _child(N name) throws XMLStreamException
+   {
+      // The children were consumed when the end of the current element was read
+      if (open == depth)
+      {
+         while (start(depth) != -1)
+         {
+            N child = naming.getName(stream);
+            if (name == null || name.equals(child))
+            {
+               read(child);
+               return true;
+            }
+            skip();
+         }
+      }
+      return false;
+   }
+
+   private boolean _sibling(N name) throws XMLStreamException
+   {
+      // Consume the end of the current element
+      while (open >= depth)
+      {
+         if (start(depth) != -1)
+         {
+            skip();
+         }
+         else if (stream.getEventType() == XMLStreamConstants.END_ELEMENT)
+         {
+            open--;
+            stream.next();
+         }
+         else
+         {
+            return false;
+         }
+      }
+
+      // The siblings were consumed when the end of the parent was read
+      if (open == depth - 1)
+      {
+         while (start(depth - 1) != -1)
+         {
+            N sibling = naming.getName(stream);
+            if (name == null || name.equals(sibling))
+            {
+               read(sibling);
+               return true;
+            }
+            skip();
+         }
+      }
+      return false;
+   }
+
+   private boolean _following(N name) throws XMLStreamException
+   {
+      while (start(0) != -1)
+      {
+         N following = naming.getName(stream);
+         if (name == null || name.equals(following))
+         {
+            read(following);
+            return true;
+         }
+         enter();
+      }
+      return false;
+   }
+
+   /**
+    * Returns the record of the current element, the document element is read when it is not read yet.
+    *
+    * @return the current record
+    * @throws StaxNavException any StaxNavException
+    */
+   private Slot current() throws StaxNavException
+   {
+      if (depth == 0)
+      {
+         try
+         {
+            if (start(0) == -1)
+            {
+               throw new StaxNavException(stream.getLocation(), "No head!!!!");
+            }
+            read(naming.getName(stream));
+         }
+         catch (XMLStreamException e)
+         {
+            throw new StaxNavException(e);
+         }
+      }
+      return slots[depth];
+   }
+
+   /**
+    * Moves the stream to the next element start without reading it.
+    *
+    * @param floor the number of open elements below which the stream does not go
+    * @return the depth of the element or -1 when the end of an element would close the floor or at the end of the
+    *         document
+    * @throws XMLStreamException any XMLStreamException
+    */
+   private int start(int floor) throws XMLStreamException
+   {
+      while (true)
+      {
+         int type = stream.getEventType();
+         if (type == XMLStreamConstants.START_ELEMENT)
+         {
+            return open + 1;
+         }
+         else if (type == XMLStreamConstants.END_ELEMENT)
+         {
+            if (open == floor)
+            {
+               return -1;
+            }
+            open--;
+            stream.next();
+         }
+         else if (type == XMLStreamConstants.END_DOCUMENT)
+         {
+            return -1;
+         }
+         else
+         {
+            stream.next();
+         }
+      }
+   }
+
+   /**
+    * Moves the stream past the element start pointed to by the stream without reading it.
+    *
+    * @throws XMLStreamException any XMLStreamException
+    */
+   private void enter() throws XMLStreamException
+   {
+      open++;
+      stream.next();
+   }
+
+   /**
+    * Moves the stream past the element pointed to by the stream without reading it.
+    *
+    * @throws XMLStreamException any XMLStreamException
+    */
+   private void skip() throws XMLStreamException
+   {
+      support.skipElement(stream);
+      stream.next();
+   }
+
+   /**
+    * Reads the element start pointed to by the stream in the record of its depth, the element becomes the current
+    * element. The stream is left at the start of the first child element or at the end of the element.
+    *
+    * @param name the element name
+    * @throws XMLStreamException any XMLStreamException
+    */
+   private void read(Object name) throws XMLStreamException
+   {
+      int depth = open + 1;
+      if (depth == slots.length)
+      {
+         Slot[] copy = new Slot[slots.length * 2];
+         System.arraycopy(slots, 0, copy, 0, slots.length);
+         slots = copy;
+      }
+      Slot slot = slots[depth];
+      if (slot == null)
+      {
+         slots[depth] = slot = new Slot();
+      }
+
+      //
+      slot.name = name;
+      slot.localPart = stream.getLocalName();
+      slot.location = null;
+      slot.line = -2;
+      switch (locationCapture)
+      {
+         case FULL:
+            slot.location = stream.getLocation();
+            break;
+         case COMPACT:
+            Location location = stream.getLocation();
+            if (systemId == null && publicId == null)
+            {
+               systemId = location.getSystemId();
+               publicId = location.getPublicId();
+            }
+            slot.line = location.getLineNumber();
+            slot.column = location.getColumnNumber();
+            slot.offset = location.getCharacterOffset();
+            break;
+      }
+
+      //
+      int attributeCount = stream.getAttributeCount();
+      if (slot.attributes.length < attributeCount * 3)
+      {
+         slot.attributes = new String[attributeCount * 3];
+      }
+      for (int i = 0, j = 0;i < attributeCount;i++)
+      {
+         String attributeURI = stream.getAttributeNamespace(i);
+         slot.attributes[j++] = attributeURI != null ? attributeURI : XMLConstants.NULL_NS_URI;
+         slot.attributes[j++] = stream.getAttributeLocalName(i);
+         slot.attributes[j++] = stream.getAttributeValue(i);
+      }
+      slot.attributeCount = attributeCount;
+
+      // The textual content before the first child or the end
+      StringBuilder content = slot.content;
+      content.setLength(0);
+      boolean text = false;
+      while (true)
+      {
+         int type = stream.next();
+         if (type == XMLStreamConstants.CHARACTERS)
+         {
+            content.append(stream.getTextCharacters(), stream.getTextStart(), stream.getTextLength());
+            text = true;
+         }
+         else if (type == XMLStreamConstants.START_ELEMENT || type == XMLStreamConstants.END_DOCUMENT)
+         {
+            text = false;
+            break;
+         }
+         else if (type == XMLStreamConstants.END_ELEMENT)
+         {
+            break;
+         }
+      }
+      slot.text = text;
+      slot.string = null;
+      slot.trimmedString = null;
+
+      //
+      this.open = depth;
+      this.depth = depth;
+   }
+
+   /**
+    * The record of the element of a depth.
+    */
+   private static class Slot
+   {
+
+      /** The name resolved by the naming of the cursor. */
+      private Object name;
+
+      /** . */
+      private String localPart;
+
+      /** The location when it is fully captured. */
+      private Location location;
+
+      /** The line number when the location is compact or -2 when it is not captured. */
+      private int line;
+
+      /** The column number when the location is compact. */
+      private int column;
+
+      /** The character offset when the location is compact. */
+      private int offset;
+
+      /** The attributes as a sequence of (namespace URI, local part, value). */
+      private String[] attributes;
+
+      /** . */
+      private int attributeCount;
+
+      /** The textual content. */
+      private final StringBuilder content;
+
+      /** False when the element has no textual content. */
+      private boolean text;
+
+      /** Lazily created from the content. */
+      private String string;
+
+      /** Lazily created from the content. */
+      private String trimmedString;
+
+      private Slot()
+      {
+         this.attributes = new String[0];
+         this.content = new StringBuilder();
+      }
+
+      private String getContent()
+      {
+         if (string == null)
+         {
+            string = content.toString();
+         }
+         return string;
+      }
+
+      private String getTrimmedContent()
+      {
+         if (trimmedString == null)
+         {
+            int from = Chars.trimStart(content, 0, content.length());
+            int to = Chars.trimEnd(content, from, content.length());
+            trimmedString = content.substring(from, to);
+         }
+         return trimmedString;
+      }
+
+      private String getAttribute(String namespaceURI, String localPart)
+      {
+         for (int i = 0;i < attributeCount * 3;i += 3)
+         {
+            if (localPart.equals(attributes[i + 1]) && namespaceURI.equals(attributes[i]))
+            {
+               return attributes[i + 2];
+            }
+         }
+         return null;
+      }
+   }
+}
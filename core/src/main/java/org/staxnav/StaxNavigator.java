@@ -21,6 +21,12 @@ package org.staxnav;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.Location;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.Set;
 
@@ -80,6 +86,83 @@ public interface StaxNavigator<N>
     */
    String getContent() throws StaxNavException;
 
+   /**
+    * Writes the textual content of the currently navigated element to the writer and returns the number of written
+    * chars or -1 when {@link #getContent()} would return null. The content is not trimmed.
+    *
+    * <p>When the content of the element has not been read yet, it is streamed from the underlying stream in chunks
+    * without being buffered and it will not be available anymore. If the element has a mixed content, the text
+    * preceding its first child may have been written when -1 is returned.</p>
+    *
+    * @param writer the writer
+    * @return the number of written chars
+    * @throws NullPointerException if the writer is null
+    * @throws IOException any exception thrown by the writer
+    * @throws StaxNavException any StaxNavException
+    */
+   int getContent(Writer writer) throws NullPointerException, IOException, StaxNavException;
+
+   /**
+    * Returns a reader of the textual content of the currently navigated element or null when the element has no
+    * content. The content is not trimmed.
+    *
+    * <p>When the content of the element has not been read yet, the reader streams it from the underlying stream
+    * without buffering it and it will not be available anymore. Then the reader ends at the first child of an element
+    * with a mixed content and it ends as soon as the navigation moves the underlying stream beyond the element
+    * content.</p>
+    *
+    * @return the content reader
+    * @throws StaxNavException any StaxNavException
+    */
+   Reader getContentReader() throws StaxNavException;
+
+   /**
+    * Decodes the textual content of the currently navigated element and returns the decoded bytes.
+    *
+    * @param encoding the encoding of the content
+    * @return the decoded bytes
+    * @throws NullPointerException if the encoding is null
+    * @throws IllegalStateException if the current element does not point to a content
+    * @throws StaxNavException any StaxNavException
+    * @throws TypeConversionException when the content is not valid for the encoding
+    * @see #getBinaryContent(BinaryEncoding, OutputStream)
+    */
+   byte[] getBinaryContent(BinaryEncoding encoding) throws NullPointerException, IllegalStateException, StaxNavException, TypeConversionException;
+
+   /**
+    * Decodes the textual content of the currently navigated element to an output stream and returns the number of
+    * decoded bytes.
+    *
+    * <p>When the content of the element has not been read yet, it is decoded incrementally from the chunks of the
+    * underlying stream and will not be available anymore. The base64 content is decoded by the stream when it
+    * implements the Stax2 <code>XMLStreamReader2</code> interface.</p>
+    *
+    * @param encoding the encoding of the content
+    * @param out the output stream
+    * @return the number of decoded bytes
+    * @throws NullPointerException if any argument is null
+    * @throws IllegalStateException if the current element does not point to a content
+    * @throws IOException any exception thrown by the output stream
+    * @throws StaxNavException any StaxNavException
+    * @throws TypeConversionException when the content is not valid for the encoding
+    */
+   int getBinaryContent(BinaryEncoding encoding, OutputStream out) throws NullPointerException, IllegalStateException, IOException, StaxNavException, TypeConversionException;
+
+   /**
+    * Decodes the textual content of the currently navigated element to a byte buffer and returns the number of
+    * decoded bytes, see {@link #getBinaryContent(BinaryEncoding, OutputStream)}.
+    *
+    * @param encoding the encoding of the content
+    * @param buffer the buffer
+    * @return the number of decoded bytes
+    * @throws NullPointerException if any argument is null
+    * @throws IllegalStateException if the current element does not point to a content
+    * @throws BufferOverflowException if the buffer has not enough remaining bytes
+    * @throws StaxNavException any StaxNavException
+    * @throws TypeConversionException when the content is not valid for the encoding
+    */
+   int getBinaryContent(BinaryEncoding encoding, ByteBuffer buffer) throws NullPointerException, IllegalStateException, BufferOverflowException, StaxNavException, TypeConversionException;
+
    /**
     * Configures the content trimming when {@link #getContent()} method is invoked.
     *
@@ -107,6 +190,48 @@ public interface StaxNavigator<N>
     */
    <V> V parseContent(ValueType<V> valueType) throws IllegalStateException, NullPointerException, StaxNavException, TypeConversionException;
 
+   /**
+    * Parses the trimmed content of the currently navigated element as a decimal <code>int</code> value.
+    *
+    * @return the parsed content value
+    * @throws IllegalStateException if the current element does not point to a content
+    * @throws StaxNavException any StaxNavException
+    * @throws TypeConversionException when the content is not a valid value
+    */
+   int getIntContent() throws IllegalStateException, StaxNavException, TypeConversionException;
+
+   /**
+    * Parses the trimmed content of the currently navigated element as a decimal <code>long</code> value.
+    *
+    * @return the parsed content value
+    * @throws IllegalStateException if the current element does not point to a content
+    * @throws StaxNavException any StaxNavException
+    * @throws TypeConversionException when the content is not a valid value
+    */
+   long getLongContent() throws IllegalStateException, StaxNavException, TypeConversionException;
+
+   /**
+    * Parses the trimmed content of the currently navigated element as a <code>double</code> value, the accepted
+    * format is the one of {@link Double#parseDouble(String)}.
+    *
+    * @return the parsed content value
+    * @throws IllegalStateException if the current element does not point to a content
+    * @throws StaxNavException any StaxNavException
+    * @throws TypeConversionException when the content is not a valid value
+    */
+   double getDoubleContent() throws IllegalStateException, StaxNavException, TypeConversionException;
+
+   /**
+    * Parses the trimmed content of the currently navigated element as a <code>boolean</code> value, the accepted values
+    * are <code>true</code>, <code>false</code> ignoring the case, <code>1</code> and <code>0</code>.
+    *
+    * @return the parsed content value
+    * @throws IllegalStateException if the current element does not point to a content
+    * @throws StaxNavException any StaxNavException
+    * @throws TypeConversionException when the content is not a valid value
+    */
+   boolean getBooleanContent() throws IllegalStateException, StaxNavException, TypeConversionException;
+
    /**
     * Creates a navigator scoped around the currently navigated element. The returned navigator will uses the current
     * element as navigation root and the navigation scope is the set of descendants of its root. The forked navigator
@@ -159,6 +284,61 @@ public interface StaxNavigator<N>
     */
    Iterable<StaxNavigator<N>> fork(Axis axis, N name) throws NullPointerException;
 
+   /**
+    * Returns an iterable of stax navigator that follows the same rules than {@link #fork(Object)} except that the
+    * navigation is performed lazily.
+    *
+    * @param name the name of the root elements of the forked navigator
+    * @return an iterable of the forks
+    * @throws NullPointerException if the name argument is null
+    * @see #lazyFork(Axis, Object)
+    */
+   Iterable<StaxNavigator<N>> lazyFork(N name) throws NullPointerException;
+
+   /**
+    * Returns an iterable of stax navigator that follows the same rules than {@link #fork(Axis, Object)} except that
+    * the navigation is performed lazily: the current navigator does not move when this method is called,
+    * instead it navigates to the next matching element when the iterator <code>hasNext()</code> or <code>next()</code>
+    * methods need it. Therefore the first fork is available before the whole stream is read and a fork that is not
+    * referenced anymore can be garbage collected while the iteration continues. The returned iterable can be iterated
+    * only once and the current navigator should not be used until the iteration is over.
+    *
+    * @param axis the axis of navigation for the forks
+    * @param name the name of the root elements of the forked navigator
+    * @return an iterable of the forks
+    * @throws NullPointerException if any argument is null
+    */
+   Iterable<StaxNavigator<N>> lazyFork(Axis axis, N name) throws NullPointerException;
+
+   /**
+    * Invokes the parser with a navigator scoped around each element found by the same rules than
+    * {@link #fork(Object)}.
+    *
+    * @param name the name of the root elements of the scoped navigators
+    * @param parser the parser
+    * @return the number of parsed elements
+    * @throws NullPointerException if any argument is null
+    * @throws StaxNavException any StaxNavException
+    * @see #fork(Axis, Object, Parser)
+    */
+   int fork(N name, Parser<N> parser) throws NullPointerException, StaxNavException;
+
+   /**
+    * Invokes the parser with a navigator scoped around each element found by the same rules than
+    * {@link #fork(Axis, Object)}. The current navigator moves to an element before the parser is invoked for it,
+    * when the parser returns the scoped navigator is released and the navigation continues to the next element.
+    * The scoped navigator is valid only during the parser invocation: it may be reused for the next element and once
+    * it is released it does not reference the parsed element anymore, so the parsed elements are not retained.
+    *
+    * @param axis the axis of navigation for the scoped navigators
+    * @param name the name of the root elements of the scoped navigators
+    * @param parser the parser
+    * @return the number of parsed elements
+    * @throws NullPointerException if any argument is null
+    * @throws StaxNavException any StaxNavException
+    */
+   int fork(Axis axis, N name, Parser<N> parser) throws NullPointerException, StaxNavException;
+
    /**
     * Attempts to navigate to an element following the current one when it has the specified name.
     * If the navigation occurs, the navigator now points to that element and the method returns true.
@@ -330,4 +510,13 @@ public interface StaxNavigator<N>
     * @throws StaxNavException any StaxNavException
     */
    int descendant(N name) throws NullPointerException, StaxNavException;
+
+   /**
+    * Closes the stream of the navigated document, the navigator and its forks must not be used anymore. As with
+    * {@link javax.xml.stream.XMLStreamReader#close()} the underlying source of the stream is not closed. Closing a
+    * navigator again, or one of its forks, has no effect.
+    *
+    * @throws StaxNavException any StaxNavException
+    */
+   void close() throws StaxNavException;
 }
@@ -0,0 +1,520 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Creates navigators with a cached and configured input factory: the factory is looked up once instead of once
+ * per document and its configuration is done in one place. The configuration applies to the navigators created
+ * afterwards, a factory can be configured and used concurrently.</p>
+ *
+ * <p>A factory created with a naming only disables the support of DTDs and external entities, which is also the
+ * most efficient configuration. It also disables the namespace support when the naming is a {@link Naming.Local},
+ * which only uses the local names. The other settings keep the defaults of the input factory.</p>
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ * @param <N> the name type
+ */
+public class StaxNavigatorFactory<N>
+{
+
+   /** The Stax2 property interning the names, see <code>org.codehaus.stax2.XMLInputFactory2</code>. */
+   private static final String INTERN_NAMES = "org.codehaus.stax2.internNames";
+
+   /** . */
+   private final Naming<N> naming;
+
+   /** The StAX specification does not require the factory to be thread safe, the accesses synchronize on it. */
+   private final XMLInputFactory factory;
+
+   /** . */
+   private volatile LocationCapture locationCapture;
+
+   /** . */
+   private volatile boolean contentOnDemand;
+
+   /**
+    * Creates a factory with a new input factory that does not support DTDs, nor namespaces when the naming is a
+    * {@link Naming.Local}.
+    *
+    * @param naming the naming
+    * @throws NullPointerException if the naming is null
+    */
+   public StaxNavigatorFactory(Naming<N> naming) throws NullPointerException
+   {
+      this(naming, XMLInputFactory.newInstance());
+
+      //
+      setSupportDTD(false);
+      if (naming instanceof Naming.Local)
+      {
+         setNamespaceAware(false);
+      }
+   }
+
+   /**
+    * Creates a factory with an input factory whose configuration is not modified.
+    *
+    * @param naming the naming
+    * @param factory the input factory
+    * @throws NullPointerException if any argument is null
+    */
+   public StaxNavigatorFactory(Naming<N> naming, XMLInputFactory factory) throws NullPointerException
+   {
+      if (naming == null)
+      {
+         throw new NullPointerException("No null naming accepted");
+      }
+      if (factory == null)
+      {
+         throw new NullPointerException("No null factory accepted");
+      }
+
+      //
+      this.naming = naming;
+      this.factory = factory;
+      this.locationCapture = LocationCapture.FULL;
+      this.contentOnDemand = false;
+   }
+
+   public Naming<N> getNaming()
+   {
+      return naming;
+   }
+
+   /**
+    * Configures the namespace support of the parser. A parser that does not process the namespaces is faster, the
+    * names of the elements are then resolved from their qualified names: a {@link Naming.Local} naming removes the
+    * prefix while the other namings only suit documents without namespace prefixes. The namespace declarations are
+    * then reported as attributes.
+    *
+    * @param namespaceAware true to process the namespaces
+    */
+   public void setNamespaceAware(boolean namespaceAware)
+   {
+      setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, namespaceAware);
+   }
+
+   public boolean isNamespaceAware()
+   {
+      return getProperty(XMLInputFactory.IS_NAMESPACE_AWARE);
+   }
+
+   /**
+    * Configures the coalescing of the adjacent text events, for instance the text around a CDATA section. The
+    * content of the elements is the same in both modes, not coalescing saves the concatenation of the events in
+    * the parser.
+    *
+    * @param coalescing true to coalesce the text events
+    */
+   public void setCoalescing(boolean coalescing)
+   {
+      setProperty(XMLInputFactory.IS_COALESCING, coalescing);
+   }
+
+   public boolean isCoalescing()
+   {
+      return getProperty(XMLInputFactory.IS_COALESCING);
+   }
+
+   /**
+    * Configures the support of DTDs and of external entities, disabling it prevents the parser from reading any
+    * external resource.
+    *
+    * @param supportDTD true to support the DTDs and the external entities
+    */
+   public void setSupportDTD(boolean supportDTD)
+   {
+      synchronized (factory)
+      {
+         factory.setProperty(XMLInputFactory.SUPPORT_DTD, supportDTD);
+         factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, supportDTD);
+      }
+   }
+
+   public boolean isSupportDTD()
+   {
+      return getProperty(XMLInputFactory.SUPPORT_DTD);
+   }
+
+   /**
+    * Configures the interning of the names by the parser, which makes the comparison of the names faster. The
+    * configuration is ignored when the parser does not support it.
+    *
+    * @param interning true to intern the names
+    */
+   public void setInterning(boolean interning)
+   {
+      synchronized (factory)
+      {
+         if (factory.isPropertySupported(INTERN_NAMES))
+         {
+            factory.setProperty(INTERN_NAMES, interning);
+         }
+      }
+   }
+
+   /**
+    * Returns true when the parser interns the names.
+    *
+    * @return the interning value
+    */
+   public boolean isInterning()
+   {
+      synchronized (factory)
+      {
+         return factory.isPropertySupported(INTERN_NAMES) && Boolean.TRUE.equals(factory.getProperty(INTERN_NAMES));
+      }
+   }
+
+   /**
+    * Configures the location capture of the created navigators, see
+    * {@link StaxNavigatorImpl#setLocationCapture(LocationCapture)}.
+    *
+    * @param locationCapture the location capture
+    * @throws NullPointerException if the argument is null
+    */
+   public void setLocationCapture(LocationCapture locationCapture) throws NullPointerException
+   {
+      if (locationCapture == null)
+      {
+         throw new NullPointerException("No null location capture accepted");
+      }
+      this.locationCapture = locationCapture;
+   }
+
+   public LocationCapture getLocationCapture()
+   {
+      return locationCapture;
+   }
+
+   /**
+    * Configures the content on demand mode of the created navigators, see
+    * {@link StaxNavigatorImpl#setContentOnDemand(boolean)}.
+    *
+    * @param contentOnDemand true to read the content on demand
+    */
+   public void setContentOnDemand(boolean contentOnDemand)
+   {
+      this.contentOnDemand = contentOnDemand;
+   }
+
+   public boolean getContentOnDemand()
+   {
+      return contentOnDemand;
+   }
+
+   /**
+    * Creates a navigator of a stream.
+    *
+    * @param stream the stream
+    * @return the navigator
+    * @throws NullPointerException if the stream is null
+    * @throws XMLStreamException any XMLStreamException
+    */
+   public StaxNavigator<N> navigator(XMLStreamReader stream) throws NullPointerException, XMLStreamException
+   {
+      StaxNavigatorImpl<N> navigator = new StaxNavigatorImpl<N>(naming, stream);
+      navigator.setLocationCapture(locationCapture);
+      navigator.setContentOnDemand(contentOnDemand);
+      return navigator;
+   }
+
+   /**
+    * Creates a navigator of a byte stream, the encoding is detected from the document.
+    *
+    * @param in the input stream
+    * @return the navigator
+    * @throws NullPointerException if the input stream is null
+    * @throws XMLStreamException any XMLStreamException
+    */
+   public StaxNavigator<N> navigator(InputStream in) throws NullPointerException, XMLStreamException
+   {
+      return navigator(createStream(in));
+   }
+
+   /**
+    * Creates a navigator of a character stream.
+    *
+    * @param reader the reader
+    * @return the navigator
+    * @throws NullPointerException if the reader is null
+    * @throws XMLStreamException any XMLStreamException
+    */
+   public StaxNavigator<N> navigator(Reader reader) throws NullPointerException, XMLStreamException
+   {
+      return navigator(createStream(reader));
+   }
+
+   /**
+    * Creates a navigator of the bytes of an array.
+    *
+    * @param bytes the bytes
+    * @return the navigator
+    * @throws NullPointerException if the bytes are null
+    * @throws XMLStreamException any XMLStreamException
+    */
+   public StaxNavigator<N> navigator(byte[] bytes) throws NullPointerException, XMLStreamException
+   {
+      return navigator(createStream(bytes));
+   }
+
+   /**
+    * Creates a navigator of the remaining bytes of a buffer, the buffer position is not modified.
+    *
+    * @param buffer the buffer
+    * @return the navigator
+    * @throws NullPointerException if the buffer is null
+    * @throws XMLStreamException any XMLStreamException
+    */
+   public StaxNavigator<N> navigator(ByteBuffer buffer) throws NullPointerException, XMLStreamException
+   {
+      return navigator(createStream(buffer));
+   }
+
+   /**
+    * Creates a navigator of a file, the file is mapped in memory, see {@link MappedFile}.
+    *
+    * @param file the file
+    * @return the navigator
+    * @throws NullPointerException if the file is null
+    * @throws IOException any exception thrown while mapping the file
+    * @throws XMLStreamException any XMLStreamException
+    */
+   public StaxNavigator<N> navigator(File file) throws NullPointerException, IOException, XMLStreamException
+   {
+      return navigator(createStream(file));
+   }
+
+   /**
+    * Creates a cursor of a stream. The cursor is configured with the location capture of this factory.
+    *
+    * @param stream the stream
+    * @return the cursor
+    * @throws NullPointerException if the stream is null
+    * @throws XMLStreamException any XMLStreamException
+    */
+   public StaxCursor<N> cursor(XMLStreamReader stream) throws NullPointerException, XMLStreamException
+   {
+      StaxCursorImpl<N> cursor = new StaxCursorImpl<N>(naming, stream);
+      cursor.setLocationCapture(locationCapture);
+      return cursor;
+   }
+
+   /**
+    * Creates a cursor of a byte stream, the encoding is detected from the document, see
+    * {@link #cursor(XMLStreamReader)}.
+    *
+    * @param in the input stream
+    * @return the cursor
+    * @throws NullPointerException if the input stream is null
+    * @throws XMLStreamException any XMLStreamException
+    */
+   public StaxCursor<N> cursor(InputStream in) throws NullPointerException, XMLStreamException
+   {
+      return cursor(createStream(in));
+   }
+
+   /**
+    * Creates a cursor of a character stream, see {@link #cursor(XMLStreamReader)}.
+    *
+    * @param reader the reader
+    * @return the cursor
+    * @throws NullPointerException if the reader is null
+    * @throws XMLStreamException any XMLStreamException
+    */
+   public StaxCursor<N> cursor(Reader reader) throws NullPointerException, XMLStreamException
+   {
+      return cursor(createStream(reader));
+   }
+
+   /**
+    * Creates a cursor of the bytes of an array, see {@link #cursor(XMLStreamReader)}.
+    *
+    * @param bytes the bytes
+    * @return the cursor
+    * @throws NullPointerException if the bytes are null
+    * @throws XMLStreamException any XMLStreamException
+    */
+   public StaxCursor<N> cursor(byte[] bytes) throws NullPointerException, XMLStreamException
+   {
+      return cursor(createStream(bytes));
+   }
+
+   /**
+    * Creates a cursor of the remaining bytes of a buffer, the buffer position is not modified, see
+    * {@link #cursor(XMLStreamReader)}.
+    *
+    * @param buffer the buffer
+    * @return the cursor
+    * @throws NullPointerException if the buffer is null
+    * @throws XMLStreamException any XMLStreamException
+    */
+   public StaxCursor<N> cursor(ByteBuffer buffer) throws NullPointerException, XMLStreamException
+   {
+      return cursor(createStream(buffer));
+   }
+
+   /**
+    * Creates a cursor of a file, the file is mapped in memory, see {@link MappedFile} and
+    * {@link #cursor(XMLStreamReader)}.
+    *
+    * @param file the file
+    * @return the cursor
+    * @throws NullPointerException if the file is null
+    * @throws IOException any exception thrown while mapping the file
+    * @throws XMLStreamException any XMLStreamException
+    */
+   public StaxCursor<N> cursor(File file) throws NullPointerException, IOException, XMLStreamException
+   {
+      return cursor(createStream(file));
+   }
+
+   private XMLStreamReader createStream(InputStream in) throws NullPointerException, XMLStreamException
+   {
+      if (in == null)
+      {
+         throw new NullPointerException("No null input stream accepted");
+      }
+      synchronized (factory)
+      {
+         return factory.createXMLStreamReader(in);
+      }
+   }
+
+   private XMLStreamReader createStream(Reader reader) throws NullPointerException, XMLStreamException
+   {
+      if (reader == null)
+      {
+         throw new NullPointerException("No null reader accepted");
+      }
+      synchronized (factory)
+      {
+         return factory.createXMLStreamReader(reader);
+      }
+   }
+
+   private XMLStreamReader createStream(byte[] bytes) throws NullPointerException, XMLStreamException
+   {
+      if (bytes == null)
+      {
+         throw new NullPointerException("No null bytes accepted");
+      }
+      return createStream(new ByteArrayInputStream(bytes));
+   }
+
+   private XMLStreamReader createStream(ByteBuffer buffer) throws NullPointerException, XMLStreamException
+   {
+      if (buffer == null)
+      {
+         throw new NullPointerException("No null buffer accepted");
+      }
+      if (buffer.hasArray())
+      {
+         return createStream(new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining()));
+      }
+      else
+      {
+         return createStream(new ByteBufferInputStream(buffer.duplicate()));
+      }
+   }
+
+   private XMLStreamReader createStream(File file) throws NullPointerException, IOException, XMLStreamException
+   {
+      MappedFile mapped = MappedFile.map(file);
+      synchronized (factory)
+      {
+         return factory.createXMLStreamReader(file.toURI().toString(), mapped.getInputStream());
+      }
+   }
+
+   private void setProperty(String name, boolean value)
+   {
+      synchronized (factory)
+      {
+         factory.setProperty(name, value);
+      }
+   }
+
+   private boolean getProperty(String name)
+   {
+      synchronized (factory)
+      {
+         return Boolean.TRUE.equals(factory.getProperty(name));
+      }
+   }
+
+   /**
+    * Reads the remaining bytes of a buffer.
+    */
+   private static class ByteBufferInputStream extends InputStream
+   {
+
+      /** . */
+      private final ByteBuffer buffer;
+
+      private ByteBufferInputStream(ByteBuffer buffer)
+      {
+         this.buffer = buffer;
+      }
+
+      @Override
+      public int read() throws IOException
+      {
+         return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+      }
+
+      @Override
+      public int read(byte[] bytes, int off, int len) throws IOException
+      {
+         if (off < 0 || len < 0 || off + len > bytes.length)
+         {
+            throw new IndexOutOfBoundsException();
+         }
+         if (len == 0)
+         {
+            return 0;
+         }
+         if (!buffer.hasRemaining())
+         {
+            return -1;
+         }
+         int count = Math.min(len, buffer.remaining());
+         buffer.get(bytes, off, count);
+         return count;
+      }
+
+      @Override
+      public int available() throws IOException
+      {
+         return buffer.remaining();
+      }
+   }
+}
@@ -25,6 +25,15 @@ import javax.xml.stream.Location;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -32,7 +41,10 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
@@ -44,11 +56,14 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
    /** . */
    private final Naming<N> naming;
 
+   /** . */
+   private final Document document;
+
    /** . */
    private Entry current;
 
    /** . */
-   private final int depth;
+   private int depth;
 
    /** . */
    private boolean trimContent;
@@ -66,14 +81,100 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
 
       //
       this.naming = naming;
-      this.current = new HeadEntry(stream);
+      this.document = new Document(naming, stream);
+      this.current = new HeadEntry(document);
+      this.depth = 0;
+      this.trimContent = false;
+   }
+
+   /**
+    * <p>Creates a pipelined navigator: the elements are built ahead of the navigation by a task that reads the stream
+    * on another thread and hands them over through a bounded queue, so the parsing of the document overlaps with the
+    * processing of the elements. The task is executed by the executor, it reads the stream until the end of the
+    * document or until the queue is full, and resumes when the navigation consumes elements. It stops when the
+    * navigator is closed, the task then closes the stream itself, or when the navigator and its forks are garbage
+    * collected, so an executor of platform or virtual threads can be used.</p>
+    *
+    * <p>The navigation behaves like the navigation of a navigator reading the stream on the calling thread, the
+    * exceptions raised while reading the stream are rethrown by the navigation when it reaches the point of the
+    * document where they occurred. The content of the elements is always read with the elements and the
+    * configuration of how the elements are read cannot be changed, see {@link #setContentOnDemand(boolean)} and
+    * {@link #setLocationCapture(LocationCapture)}. The stream must not be used by the caller anymore.</p>
+    *
+    * @param naming the naming
+    * @param stream the stream
+    * @param capacity the maximum number of elements built ahead of the navigation
+    * @param executor the executor of the task reading the stream
+    * @param <N> the name type
+    * @return the pipelined navigator
+    * @throws NullPointerException if any argument is null
+    * @throws IllegalArgumentException if the capacity is not positive
+    */
+   public static <N> StaxNavigatorImpl<N> pipeline(Naming<N> naming, XMLStreamReader stream, int capacity, Executor executor) throws NullPointerException, IllegalArgumentException
+   {
+      if (naming == null)
+      {
+         throw new NullPointerException("No null naming accepted");
+      }
+      if (stream == null)
+      {
+         throw new NullPointerException("No null stream accepted");
+      }
+      if (executor == null)
+      {
+         throw new NullPointerException("No null executor accepted");
+      }
+      if (capacity < 1)
+      {
+         throw new IllegalArgumentException("The capacity " + capacity + " must be positive");
+      }
+      Document document = new Document(naming, stream);
+      document.pipeline = new Pipeline(document, capacity);
+      executor.execute(document.pipeline);
+      return new StaxNavigatorImpl<N>(naming, document);
+   }
+
+   /**
+    * Creates a pipelined navigator whose stream is read by a new daemon thread, see
+    * {@link #pipeline(Naming, XMLStreamReader, int, Executor)}.
+    *
+    * @param naming the naming
+    * @param stream the stream
+    * @param capacity the maximum number of elements built ahead of the navigation
+    * @param <N> the name type
+    * @return the pipelined navigator
+    * @throws NullPointerException if any argument is null
+    * @throws IllegalArgumentException if the capacity is not positive
+    */
+   public static <N> StaxNavigatorImpl<N> pipeline(Naming<N> naming, XMLStreamReader stream, int capacity) throws NullPointerException, IllegalArgumentException
+   {
+      return pipeline(naming, stream, capacity, new Executor()
+      {
+         public void execute(Runnable command)
+         {
+            Thread thread = new Thread(command, "staxnav-pipeline");
+            thread.setDaemon(true);
+            thread.start();
+         }
+      });
+   }
+
+   private StaxNavigatorImpl(Naming<N> naming, Document document)
+   {
+      this.naming = naming;
+      this.document = document;
+      this.current = new HeadEntry(document);
       this.depth = 0;
       this.trimContent = false;
    }
 
-   private StaxNavigatorImpl(Naming<N> naming, Entry current, boolean trimContent)
+   private StaxNavigatorImpl(Naming<N> naming, Document document, Entry current, boolean trimContent)
    {
+      document.forks++;
+
+      //
       this.naming = naming;
+      this.document = document;
       this.current = current;
       this.depth = current.getElement().getDepth();
       this.trimContent = trimContent;
@@ -85,7 +186,7 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
       {
          return null;
       }
-      return current.getElement().getName(naming);
+      return current.getElement().getName();
    }
 
    public Naming<N> getNaming()
@@ -100,7 +201,7 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
          return null;
       }
 
-      return current.getElement().getName().getLocalPart();
+      return current.getElement().getLocalPart();
    }
 
    public Location getLocation() throws StaxNavException
@@ -109,7 +210,7 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
       {
          return null;
       }
-      return current.getElement().getLocation();
+      return current.getElement().getLocation(document);
    }
 
    public int getDepth() throws StaxNavException
@@ -131,6 +232,127 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
       return trimContent;
    }
 
+   /**
+    * <p>Configures the content on demand mode. By default the content of an element is read when the element
+    * is reached. When the content on demand mode is enabled, the content of an element is read only when it
+    * is requested by {@link #getContent()} or {@link #parseContent(ValueType)} before the navigation goes past the
+    * start of the element, otherwise it is skipped at the stream level without being copied. The content can also
+    * be streamed without being buffered with {@link #getContent(java.io.Writer)} or {@link #getContentReader()}.</p>
+    *
+    * <p>In this mode the content of an element becomes unavailable once the underlying stream has been moved beyond
+    * the element start, which happens with any navigation reading further elements, including a navigation that
+    * fails or a navigation done by a fork. Requesting it then raises an {@link IllegalStateException}.</p>
+    *
+    * <p>The configuration is shared with the forks of this navigator and applies to the elements that have not been
+    * read yet.</p>
+    *
+    * @param contentOnDemand true to read the content on demand
+    * @throws IllegalStateException if the navigator is pipelined
+    */
+   public void setContentOnDemand(boolean contentOnDemand) throws IllegalStateException
+   {
+      checkNotPipelined();
+      document.contentOnDemand = contentOnDemand;
+   }
+
+   /**
+    * Returns the content on demand configuration.
+    *
+    * @return the content on demand value
+    */
+   public boolean getContentOnDemand()
+   {
+      return document.contentOnDemand;
+   }
+
+   /**
+    * Configures how the location of the elements is captured, the default value is {@link LocationCapture#FULL}.
+    * The configuration is shared with the forks of this navigator and applies to the elements that have not been
+    * read yet.
+    *
+    * @param locationCapture the location capture
+    * @throws NullPointerException if the argument is null
+    * @throws IllegalStateException if the navigator is pipelined
+    */
+   public void setLocationCapture(LocationCapture locationCapture) throws NullPointerException, IllegalStateException
+   {
+      if (locationCapture == null)
+      {
+         throw new NullPointerException("No null location capture accepted");
+      }
+      checkNotPipelined();
+      document.locationCapture = locationCapture;
+   }
+
+   public void close() throws StaxNavException
+   {
+      if (!document.closed)
+      {
+         document.closed = true;
+         if (document.pipeline != null && !document.pipeline.close())
+         {
+            // The stream is closed by the producer since it may be reading it
+            return;
+         }
+         try
+         {
+            document.stream.close();
+         }
+         catch (XMLStreamException e)
+         {
+            throw new StaxNavException(e);
+         }
+      }
+   }
+
+   private void checkNotPipelined() throws IllegalStateException
+   {
+      if (document.pipeline != null)
+      {
+         throw new IllegalStateException("The elements of a pipelined navigator are read by another thread");
+      }
+   }
+
+   /**
+    * Returns the location capture configuration.
+    *
+    * @return the location capture
+    */
+   public LocationCapture getLocationCapture()
+   {
+      return document.locationCapture;
+   }
+
+   /**
+    * <p>Configures the subtree skipping mode. When it is enabled, a navigation along the
+    * {@link Axis#FOLLOWING_SIBLING} axis skips the descendants of the elements it moves past at the stream level
+    * instead of reading them: the descendants that were not read yet become unreachable, for instance navigating to
+    * the next element after a failed sibling navigation will not visit them.</p>
+    *
+    * <p>The skipping does not happen when this navigator has been forked or is a fork since the forks could reach
+    * the skipped elements, the navigators scoped by {@link #fork(Axis, Object, Parser)} are not taken into account
+    * after the parser returns. The other forks are never released, so once a navigator of the document has been
+    * forked the skipping remains disabled for the rest of the document.</p>
+    *
+    * <p>The configuration is shared with the forks of this navigator.</p>
+    *
+    * @param subtreeSkipping true to skip the subtrees
+    */
+   public void setSubtreeSkipping(boolean subtreeSkipping)
+   {
+      document.subtreeSkipping = subtreeSkipping;
+   }
+
+   /**
+    * Returns the subtree skipping configuration.
+    *
+    * @return the subtree skipping value
+    */
+   public boolean getSubtreeSkipping()
+   {
+      return document.subtreeSkipping;
+   }
+
    public String getContent() throws StaxNavException
    {
       if (current == null)
@@ -140,6 +362,176 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
       return current.getElement().getContent(trimContent);
    }
 
+   public int getContent(Writer writer) throws NullPointerException, IOException, StaxNavException
+   {
+      if (writer == null)
+      {
+         throw new NullPointerException("No null writer accepted");
+      }
+      if (current == null)
+      {
+         return -1;
+      }
+      Element element = current.getElement();
+      if (document.stream(element))
+      {
+         try
+         {
+            XMLStreamReader stream = document.stream;
+            int count = 0;
+            while (true)
+            {
+               int type = stream.next();
+               if (type == XMLStreamConstants.CHARACTERS)
+               {
+                  int length = stream.getTextLength();
+                  writer.write(stream.getTextCharacters(), stream.getTextStart(), length);
+                  count += length;
+               }
+               else if (type == XMLStreamConstants.START_ELEMENT)
+               {
+                  element.content = null;
+                  count = -1;
+                  break;
+               }
+               else if (type == XMLStreamConstants.END_ELEMENT || type == XMLStreamConstants.END_DOCUMENT)
+               {
+                  if (count == 0)
+                  {
+                     element.content = null;
+                     count = -1;
+                  }
+                  break;
+               }
+            }
+            document.streamed = null;
+            return count;
+         }
+         catch (XMLStreamException e)
+         {
+            throw new StaxNavException(e);
+         }
+      }
+      else
+      {
+         String content = element.getContent(false);
+         if (content == null)
+         {
+            return -1;
+         }
+         writer.write(content);
+         return content.length();
+      }
+   }
+
+   public Reader getContentReader() throws StaxNavException
+   {
+      if (current == null)
+      {
+         return null;
+      }
+      Element element = current.getElement();
+      if (document.stream(element))
+      {
+         return new ContentReader(document, element);
+      }
+      else
+      {
+         String content = element.getContent(false);
+         return content != null ? new StringReader(content) : null;
+      }
+   }
+
+   public byte[] getBinaryContent(BinaryEncoding encoding) throws NullPointerException, IllegalStateException, StaxNavException, TypeConversionException
+   {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try
+      {
+         decodeContent(encoding, out);
+      }
+      catch (IOException e)
+      {
+         throw new AssertionError(e);
+      }
+      return out.toByteArray();
+   }
+
+   public int getBinaryContent(BinaryEncoding encoding, OutputStream out) throws NullPointerException, IllegalStateException, IOException, StaxNavException, TypeConversionException
+   {
+      if (out == null)
+      {
+         throw new NullPointerException("No null output stream accepted");
+      }
+      return decodeContent(encoding, out);
+   }
+
+   public int getBinaryContent(BinaryEncoding encoding, ByteBuffer buffer) throws NullPointerException, IllegalStateException, BufferOverflowException, StaxNavException, TypeConversionException
+   {
+      if (buffer == null)
+      {
+         throw new NullPointerException("No null buffer accepted");
+      }
+      try
+      {
+         return decodeContent(encoding, new BinaryDecoder.BufferOutputStream(buffer));
+      }
+      catch (IOException e)
+      {
+         throw new AssertionError(e);
+      }
+   }
+
+   private int decodeContent(BinaryEncoding encoding, OutputStream out) throws IllegalStateException, IOException, StaxNavException, TypeConversionException
+   {
+      if (encoding == null)
+      {
+         throw new NullPointerException("No null encoding accepted");
+      }
+      if (current == null)
+      {
+         throw new IllegalStateException("No element navigated");
+      }
+      Element element = current.getElement();
+      try
+      {
+         if (document.stream(element))
+         {
+            try
+            {
+               return document.support.readElementAsBinary(document.stream, encoding, out);
+            }
+            catch (IllegalStateException e)
+            {
+               element.content = null;
+               throw e;
+            }
+            finally
+            {
+               document.streamed = null;
+            }
+         }
+         else
+         {
+            String content = element.getContent(false);
+            if (content == null)
+            {
+               throw new IllegalStateException("No content available for decoding");
+            }
+            BinaryDecoder decoder = encoding.decoder(out);
+            decoder.decode(content);
+            return decoder.finish();
+         }
+      }
+      catch (IllegalArgumentException e)
+      {
+         throw new TypeConversionException(element.getLocation(document), e, "Could not decode the " + encoding + " content");
+      }
+      catch (XMLStreamException e)
+      {
+         throw new TypeConversionException(element.getLocation(document), e, "Could not decode the " + encoding + " content");
+      }
+   }
+
    public <V> V parseContent(ValueType<V> valueType) throws IllegalStateException, NullPointerException, StaxNavException
    {
       if (valueType == null)
@@ -150,8 +542,8 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
       {
          return null;
       }
-      Entry element = current;
-      String content = element.getElement().getContent(true);
+      Element element = current.getElement();
+      CharSequence content = element.getContent(true);
       if (content == null)
       {
          throw new IllegalStateException("No content available for parsing");
@@ -168,26 +560,78 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
          }
          else
          {
-            throw new TypeConversionException(element.getElement().getLocation(), e, "Could not parse string value " + content);
+            throw new TypeConversionException(element.getLocation(document), e, "Could not parse string value " + content);
          }
       }
    }
 
-   public String getAttribute(String name) throws NullPointerException, IllegalStateException, StaxNavException
+   public int getIntContent() throws IllegalStateException, StaxNavException, TypeConversionException
+   {
+      return (int)parsePrimitiveContent(PrimitiveParser.INT);
+   }
+
+   public long getLongContent() throws IllegalStateException, StaxNavException, TypeConversionException
+   {
+      return parsePrimitiveContent(PrimitiveParser.LONG);
+   }
+
+   public double getDoubleContent() throws IllegalStateException, StaxNavException, TypeConversionException
+   {
+      return Double.longBitsToDouble(parsePrimitiveContent(PrimitiveParser.DOUBLE));
+   }
+
+   public boolean getBooleanContent() throws IllegalStateException, StaxNavException, TypeConversionException
+   {
+      return parsePrimitiveContent(PrimitiveParser.BOOLEAN) != 0;
+   }
+
+   private long parsePrimitiveContent(PrimitiveParser parser) throws IllegalStateException, StaxNavException, TypeConversionException
+   {
+      Element element = getContentElement();
+      String content = element.getContent(false);
+      int from = element.getTrimmedStart();
+      int to = element.getTrimmedEnd();
+      try
+      {
+         return parser.parse(content, from, to);
+      }
+      catch (IllegalArgumentException e)
+      {
+         throw new TypeConversionException(element.getLocation(document), e, "Could not parse string value " + content);
+      }
+   }
+
+   /**
+    * Returns the current element when it has a content.
+    *
+    * @return the current element
+    * @throws IllegalStateException if there is no current element or it has no content
+    */
+   private Element getContentElement() throws IllegalStateException
    {
       if (current == null)
       {
-         return null;
+         throw new IllegalStateException("No element navigated");
       }
-      Map<String, String> attributes = current.getElement().getAttributes();
-      if (attributes.isEmpty())
+      Element element = current.getElement();
+      if (element.getContent(false) == null)
       {
-         return null;
+         throw new IllegalStateException("No content available for parsing");
       }
-      else
+      return element;
+   }
+
+   public String getAttribute(String name) throws NullPointerException, IllegalStateException, StaxNavException
+   {
+      if (name == null)
+      {
+         throw new NullPointerException("No null attribute name expected");
+      }
+      if (current == null)
       {
-         return attributes.get(name);
+         return null;
       }
+      return current.getElement().getAttribute(XMLConstants.NULL_NS_URI, name);
    }
 
    public StaxNavigator<N> fork() throws StaxNavException
@@ -201,7 +645,7 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
       {
          throw new NullPointerException("No null axis accepted");
       }
-      StaxNavigatorImpl<N> fork = new StaxNavigatorImpl<N>(naming, current, trimContent);
+      StaxNavigatorImpl<N> fork = new StaxNavigatorImpl<N>(naming, document, current, trimContent);
       Entry next = _navigate(current, axis, null);
       if (next != null)
       {
@@ -238,14 +682,22 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
          elements = Collections.emptyList();
       }
 
-      //
-      while (navigate(axis, name))
+      // The collected entries are held by the forks to come, their subtrees must not be skipped
+      document.forks++;
+      try
       {
-         if (elements.isEmpty())
+         while (navigate(axis, name))
          {
-            elements = new LinkedList<Entry>();
+            if (elements.isEmpty())
+            {
+               elements = new LinkedList<Entry>();
+            }
+            elements.add(current);
          }
-         elements.add(current);
+      }
+      finally
+      {
+         document.forks--;
       }
 
       // Freeze what we need
@@ -267,7 +719,7 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
                public StaxNavigator<N> next()
                {
                   Entry next = i.next();
-                  return new StaxNavigatorImpl<N>(naming, next, trimContent);
+                  return new StaxNavigatorImpl<N>(naming, document, next, trimContent);
                }
                public void remove()
                {
@@ -278,78 +730,203 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
       };
    }
 
-   public String getAttribute(QName name) throws NullPointerException, IllegalStateException, StaxNavException
+   public Iterable<StaxNavigator<N>> lazyFork(N name)
    {
-      if (name == null)
-      {
-         throw new NullPointerException("No null attribute name expected");
-      }
-      if (current == null)
+      return lazyFork(Axis.FOLLOWING_SIBLING, name);
+   }
+
+   public Iterable<StaxNavigator<N>> lazyFork(final Axis axis, final N name)
+   {
+      if (axis == null)
       {
-         return null;
+         throw new NullPointerException("No null axis accepted");
       }
-      if (XMLConstants.NULL_NS_URI.equals(name.getNamespaceURI()))
+      if (name == null)
       {
-         return getAttribute(name.getLocalPart());
+         throw new NullPointerException("No null name accepted");
       }
-      else
-      {
-         Map<QName, String> qualifiedAttributes = current.getElement().getQualifiedAttributes();
-         if (qualifiedAttributes.isEmpty())
-         {
-            return null;
-         }
-         else
+
+      //
+      final boolean trimContent = this.trimContent;
+
+      //
+      return new Iterable<StaxNavigator<N>>()
+      {
+         boolean iterated = false;
+         public Iterator<StaxNavigator<N>> iterator()
          {
-            return qualifiedAttributes.get(name);
+            if (iterated)
+            {
+               throw new IllegalStateException("A lazy fork can be iterated only once");
+            }
+            iterated = true;
+            return new LazyForkIterator(axis, name, trimContent);
          }
-      }
+      };
    }
 
-   public Map<String, String> getAttributes() throws NullPointerException, IllegalStateException, StaxNavException
+   /**
+    * Navigates to the next match only when it is needed, the only entry retained by the iterator is the
+    * next fork root when it has been found but not yet returned.
+    */
+   private class LazyForkIterator implements Iterator<StaxNavigator<N>>
    {
-      if (current == null)
+
+      /** . */
+      private final Axis axis;
+
+      /** . */
+      private final N name;
+
+      /** . */
+      private final boolean trimContent;
+
+      /** . */
+      private Entry next;
+
+      /** . */
+      private boolean first;
+
+      /** . */
+      private boolean done;
+
+      private LazyForkIterator(Axis axis, N name, boolean trimContent)
       {
-         return null;
+         this.axis = axis;
+         this.name = name;
+         this.trimContent = trimContent;
+         this.next = null;
+         this.first = true;
+         this.done = false;
       }
-      Map<String, String> attributes = current.getElement().getAttributes();
-      if (attributes.isEmpty())
+
+      public boolean hasNext()
       {
-         return Collections.emptyMap();
+         if (next == null && !done)
+         {
+            if (first && name.equals(getName()))
+            {
+               next = current;
+            }
+            else if (navigate(axis, name))
+            {
+               next = current;
+            }
+            else
+            {
+               done = true;
+            }
+            first = false;
+         }
+         return next != null;
       }
-      else
+
+      public StaxNavigator<N> next()
       {
-         return attributes;
+         if (!hasNext())
+         {
+            throw new NoSuchElementException();
+         }
+         Entry entry = next;
+         next = null;
+         return new StaxNavigatorImpl<N>(naming, document, entry, trimContent);
+      }
+
+      public void remove()
+      {
+         throw new UnsupportedOperationException();
       }
    }
 
-   public Map<QName, String> getQualifiedAttributes() throws NullPointerException, IllegalStateException, StaxNavException
+   public int fork(N name, Parser<N> parser) throws NullPointerException, StaxNavException
    {
-      if (current == null)
+      return fork(Axis.FOLLOWING_SIBLING, name, parser);
+   }
+
+   public int fork(Axis axis, N name, Parser<N> parser) throws NullPointerException, StaxNavException
+   {
+      if (axis == null)
       {
-         return null;
+         throw new NullPointerException("No null axis accepted");
       }
-      else
+      if (name == null)
       {
-         Map<QName, String> qualifiedAttributes = current.getElement().getQualifiedAttributes();
-         Map<String, String> attributes = getAttributes();
-         if (!attributes.isEmpty()) {
-           if (qualifiedAttributes.isEmpty()) {
-             qualifiedAttributes = new HashMap<QName, String>(qualifiedAttributes);
-           }
-           for (String key : attributes.keySet()) {
-              qualifiedAttributes.put(new QName(key), attributes.get(key));
-           }
-         }
-         if (qualifiedAttributes.isEmpty())
+         throw new NullPointerException("No null name accepted");
+      }
+      if (parser == null)
+      {
+         throw new NullPointerException("No null parser accepted");
+      }
+
+      //
+      StaxNavigatorImpl<N> scoped = null;
+      int count = 0;
+      boolean found = name.equals(getName()) || navigate(axis, name);
+      while (found)
+      {
+         if (scoped == null)
          {
-            return Collections.emptyMap();
+            scoped = new StaxNavigatorImpl<N>(naming, document, current, trimContent);
          }
          else
          {
-            return qualifiedAttributes;
+            scoped.scope(current, trimContent);
+         }
+         try
+         {
+            parser.parse(scoped);
+         }
+         finally
+         {
+            // Release the element so it can be garbage collected once we navigate away from it
+            scoped.current = null;
+            document.forks--;
          }
+         count++;
+         found = navigate(axis, name);
+      }
+      return count;
+   }
+
+   private void scope(Entry current, boolean trimContent)
+   {
+      document.forks++;
+
+      //
+      this.current = current;
+      this.depth = current.getElement().getDepth();
+      this.trimContent = trimContent;
+   }
+
+   public String getAttribute(QName name) throws NullPointerException, IllegalStateException, StaxNavException
+   {
+      if (name == null)
+      {
+         throw new NullPointerException("No null attribute name expected");
+      }
+      if (current == null)
+      {
+         return null;
       }
+      return current.getElement().getAttribute(name.getNamespaceURI(), name.getLocalPart());
+   }
+
+   public Map<String, String> getAttributes() throws NullPointerException, IllegalStateException, StaxNavException
+   {
+      if (current == null)
+      {
+         return null;
+      }
+      return current.getElement().getAttributes();
+   }
+
+   public Map<QName, String> getQualifiedAttributes() throws NullPointerException, IllegalStateException, StaxNavException
+   {
+      if (current == null)
+      {
+         return null;
+      }
+      return current.getElement().getQualifiedAttributes();
    }
 
   public String getNamespaceByPrefix(String prefix) throws NullPointerException, StaxNavException
@@ -452,7 +1029,7 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
    {
       if (current != null)
       {
-         if (name == null ||name.equals(naming.getName(current.getElement().getName())))
+         if (name == null ||name.equals(current.getElement().getName()))
          {
             return current;
          }
@@ -465,7 +1042,7 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
       if (current != null)
       {
          Entry next = current.next(depth);
-         if (next != null && (name == null || name.equals(naming.getName(next.getElement().getName()))))
+         if (next != null && (name == null || name.equals(next.getElement().getName())))
          {
             current = next;
             return current;
@@ -486,13 +1063,12 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
             {
                if (next.getElement().getDepth() == current.getElement().getDepth() + 1)
                {
-                  N nextName = naming.getName(next.getElement().getName());
                   if (name == null)
                   {
                      current = next;
                      return current;
                   }
-                  else if (name.equals(nextName))
+                  else if (name.equals(next.getElement().getName()))
                   {
                      current = next;
                      return current;
@@ -520,10 +1096,12 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
    {
       if (current != null)
       {
+         // The descendants can be skipped when no fork can reach them
+         boolean skip = document.subtreeSkipping && document.forks == 0;
          Entry element = current;
          while (true)
          {
-            Entry next = element.next();
+            Entry next = skip ? element.following() : element.next();
             if (next != null && next.getElement().getDepth() >= current.getElement().getDepth())
             {
                if (next.getElement().getDepth() == current.getElement().getDepth())
@@ -535,7 +1113,7 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
                   }
                   else
                   {
-                     N siblingName = naming.getName(next.getElement().getName());
+                     N siblingName = next.getElement().getName();
                      if (name.equals(siblingName))
                      {
                         current = next;
@@ -572,7 +1150,7 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
          Entry entry = current.next();
          while (entry != null)
          {
-            N findName = naming.getName(entry.getElement().getName());
+            N findName = entry.getElement().getName();
             if (name.equals(findName))
             {
                current = entry;
@@ -595,7 +1173,7 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
       {
          throw new NullPointerException("No null name accepted");
       }
-      if (name.equals(naming.getName(current.getElement().getName())))
+      if (name.equals(current.getElement().getName()))
       {
          return true;
       }
@@ -620,7 +1198,7 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
       {
          return null;
       }
-      N name = naming.getName(next.getElement().getName());
+      N name = next.getElement().getName();
       if (names.contains(name))
       {
          current = next;
@@ -653,7 +1231,7 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
          Entry next = element.next();
          if (next != null && next.getElement().getDepth() >= current.getElement().getDepth())
          {
-            N descendantName = naming.getName(next.getElement().getName());
+            N descendantName = next.getElement().getName();
             if (name.equals(descendantName))
             {
                int diff = next.getElement().getDepth() - current.getElement().getDepth();
@@ -709,25 +1287,46 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
 
       protected abstract Entry next() throws StaxNavException;
 
+      /**
+       * Returns the first entry following this entry that is not one of its descendants. When the descendants have
+       * not been read yet, they are skipped at the stream level and will never be linked from this entry.
+       * When the descendants have already been read the next entry is returned instead.
+       *
+       * @return the following entry
+       * @throws StaxNavException any StaxNavException
+       */
+      protected abstract Entry following() throws StaxNavException;
+
    }
 
    private static class HeadEntry extends Entry
    {
 
       /** . */
-      private final XMLStreamReader stream;
+      private final Document document;
 
       /** . */
       private Entry root;
 
-      private HeadEntry(XMLStreamReader stream)
+      private HeadEntry(Document document)
       {
-         this.stream = stream;
+         this.document = document;
          this.root = null;
       }
 
       private Entry get()
       {
+         XMLStreamReader stream = document.stream;
+         if (root == null && document.pipeline != null)
+         {
+            Element element = document.pipeline.take();
+            if (element == null)
+            {
+               // The stream is not used anymore by the pipeline
+               throw new StaxNavException(stream.getLocation(), "No head!!!!");
+            }
+            root = new PipelinedEntry(document.pipeline, element);
+         }
          if (root == null)
          {
             try
@@ -737,7 +1336,7 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
                   int type = stream.getEventType();
                   if (type == XMLStreamConstants.START_ELEMENT)
                   {
-                     root = new StreamEntry(stream, new Element(stream, null));
+                     root = new StreamEntry(document, new Element(document, null));
                      break;
                   }
                   else
@@ -773,6 +1372,11 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
          return get().next();
       }
 
+      protected Entry following() throws StaxNavException
+      {
+         return get().following();
+      }
+
       @Override
       protected Element getElement() throws StaxNavException
       {
@@ -790,7 +1394,7 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
    {
 
       /** . */
-      private final XMLStreamReader stream;
+      private final Document document;
 
       /** . */
       private final Element element;
@@ -798,9 +1402,9 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
       /** . */
       private StreamEntry next;
 
-      private StreamEntry(XMLStreamReader stream, Element element)
+      private StreamEntry(Document document, Element element)
       {
-         this.stream = stream;
+         this.document = document;
          this.next = null;
          this.element = element;
       }
@@ -834,29 +1438,44 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
          {
             if (next == null)
             {
-               Element parent = element;
-               while (true)
+               document.skip();
+               next = read(element);
+            }
+            return next;
+         }
+         catch (XMLStreamException e)
+         {
+            throw new StaxNavException(e);
+         }
+      }
+
+      protected Entry following() throws StaxNavException
+      {
+         try
+         {
+            if (next == null)
+            {
+               XMLStreamReader stream = document.stream;
+
+               // Consume the events until the end of this element without creating anything
+               if (document.pending == element)
                {
-                  int type = stream.getEventType();
-                  if (type == XMLStreamConstants.START_ELEMENT)
-                  {
-                     next = new StreamEntry(stream, new Element(stream, parent));
-                     break;
-                  }
-                  else if (type == XMLStreamConstants.END_ELEMENT)
-                  {
-                     parent = parent.getParent();
-                     stream.next();
-                  }
-                  else if (type == XMLStreamConstants.END_DOCUMENT)
-                  {
-                     break;
-                  }
-                  else
-                  {
-                     stream.next();
-                  }
+                  document.pending = null;
+                  element.content = Element.SKIPPED;
+                  document.support.skipElement(stream);
+               }
+               else
+               {
+                  document.skip();
+                  document.support.skipContent(stream);
+               }
+               if (stream.getEventType() == XMLStreamConstants.END_ELEMENT)
+               {
+                  stream.next();
                }
+
+               //
+               next = read(element.getParent());
             }
             return next;
          }
@@ -866,6 +1485,39 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
          }
       }
 
+      /**
+       * Reads the entry of the next element start.
+       *
+       * @param parent the parent element of the events pointed to by the stream
+       * @return the next entry or null when the end of the document is reached
+       * @throws XMLStreamException any XMLStreamException
+       */
+      private StreamEntry read(Element parent) throws XMLStreamException
+      {
+         XMLStreamReader stream = document.stream;
+         while (true)
+         {
+            int type = stream.getEventType();
+            if (type == XMLStreamConstants.START_ELEMENT)
+            {
+               return new StreamEntry(document, new Element(document, parent));
+            }
+            else if (type == XMLStreamConstants.END_ELEMENT)
+            {
+               parent = parent.getParent();
+               stream.next();
+            }
+            else if (type == XMLStreamConstants.END_DOCUMENT)
+            {
+               return null;
+            }
+            else
+            {
+               stream.next();
+            }
+         }
+      }
+
       @Override
       public String toString()
       {
@@ -873,146 +1525,734 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
       }
    }
 
-   private static class Element
+   private static class PipelinedEntry extends Entry
    {
 
       /** . */
-      private final Element parent;
-
-      /** . */
-      private final QName name;
+      private final Pipeline pipeline;
 
       /** . */
-      private final int depth;
-
-      /** The content is not null. */
-      private final Object content;
+      private final Element element;
 
       /** . */
-      private final Location location;
+      private PipelinedEntry next;
 
-      /** . */
-      private final Map<String, String> attributes;
+      private PipelinedEntry(Pipeline pipeline, Element element)
+      {
+         this.pipeline = pipeline;
+         this.element = element;
+         this.next = null;
+      }
 
-      /** . */
-      private final Map<QName, String> qualifiedAttributes;
+      protected Element getElement() throws StaxNavException
+      {
+         return element;
+      }
 
-      /** . */
-      private final Map<String, String> namespaces;
+      protected boolean hasNext(int depth) throws StaxNavException
+      {
+         return next(depth) != null;
+      }
 
-      private Element(XMLStreamReader stream, Element parent) throws XMLStreamException
+      protected Entry next(int depth) throws StaxNavException
       {
-         // We assume that the stream points to the start of the modelled element
-         if (stream.getEventType() != XMLStreamConstants.START_ELEMENT)
+         Entry next = next();
+         if (next != null && next.getElement().getDepth() > depth)
          {
-            throw new AssertionError();
+            return next;
          }
-
-         //
-         QName name = stream.getName();
-         Location location = stream.getLocation();
-
-         //
-         Map<String, String> attributes = Collections.emptyMap();
-         Map<QName, String> qualifiedAttributes = Collections.emptyMap();
-         int attributeCount = stream.getAttributeCount();
-         for (int i = 0;i < attributeCount;i++)
+         else
          {
-            String attributeValue = stream.getAttributeValue(i);
-            QName attributeName = stream.getAttributeName(i);
-            if (XMLConstants.NULL_NS_URI.equals(attributeName.getNamespaceURI()))
-            {
-               if (attributes.isEmpty())
-               {
-                  attributes = new HashMap<String, String>();
-               }
-               attributes.put(attributeName.getLocalPart(), attributeValue);
-            }
-            else
-            {
-               if (qualifiedAttributes.isEmpty())
-               {
-                  qualifiedAttributes = new HashMap<QName, String>();
-               }
-               qualifiedAttributes.put(attributeName, attributeValue);
-            }
+            return null;
          }
+      }
 
-         //
-         Map<String, String> namespaces;
-         int namespaceCount = stream.getNamespaceCount();
-         if (namespaceCount > 0)
+      protected Entry next() throws StaxNavException
+      {
+         if (next == null)
          {
-            namespaces = new HashMap<String, String>();
-            for (int i = 0;i < namespaceCount;i++)
+            Element element = pipeline.take();
+            if (element != null)
             {
-               String namespacePrefix = stream.getNamespacePrefix(i);
-               if (namespacePrefix == null)
-               {
-                  namespacePrefix = "";
-               }
-               String namespaceURI = stream.getNamespaceURI(i);
-               namespaces.put(namespacePrefix, namespaceURI);
+               next = new PipelinedEntry(pipeline, element);
             }
          }
-         else
-         {
-            namespaces = Collections.emptyMap();
-         }
+         return next;
+      }
 
-         // When we leave we assume that we are positionned on the next element start or the document end
-         StringBuilder sb = null;
-         String chunk = null;
-         Object content = null;
-         while (true)
+      protected Entry following() throws StaxNavException
+      {
+         if (next == null)
          {
-            stream.next();
-            int type = stream.getEventType();
-            if (type == XMLStreamConstants.END_DOCUMENT || type == XMLStreamConstants.START_ELEMENT)
+            // Drop the descendants without creating their entries
+            Element element = pipeline.take();
+            while (element != null && element.getDepth() > this.element.getDepth())
             {
-               break;
+               element = pipeline.take();
             }
-            else if (type == XMLStreamConstants.CHARACTERS)
+            if (element != null)
             {
-               if (chunk == null)
-               {
-                  chunk = stream.getText();
-               }
-               else
-               {
-                  if (sb == null)
-                  {
-                     sb = new StringBuilder(chunk);
-                  }
-                  sb.append(stream.getText());
-               }
+               next = new PipelinedEntry(pipeline, element);
             }
-            else if (type == XMLStreamConstants.END_ELEMENT)
-            {
-               if (sb != null)
+         }
+         return next;
+      }
+
+      @Override
+      public String toString()
+      {
+         return "PipelinedEntry[element=" + element + "]";
+      }
+   }
+
+   /**
+    * Reads the elements of a document on another thread and hands them over to the navigation with a bounded
+    * ring. The ring has a single producer and a single consumer: the producer publishes an element by incrementing
+    * the tail and the consumer releases a slot by incrementing the head, a thread waiting for the other one parks
+    * after announcing itself so that the other one unparks it.
+    */
+   private static class Pipeline implements Runnable
+   {
+
+      /** Marks the end of the document. */
+      private static final Object END = new Object();
+
+      /** How often the producer checks whether the navigation was abandoned while the ring is full. */
+      private static final long OWNER_CHECK_NANOS = 100 * 1000 * 1000;
+
+      /** The document read by the producer, its content on demand mode is never enabled. */
+      private final Document source;
+
+      /** The document of the navigation, the producer stops once it is garbage collected. */
+      private final WeakReference<Document> owner;
+
+      /** The elements followed by {@link #END} or the failure of the producer. */
+      private final Object[] ring;
+
+      /** . */
+      private final int mask;
+
+      /** The index of the next slot read by the consumer. */
+      private volatile long head;
+
+      /** The index of the next slot written by the producer. */
+      private volatile long tail;
+
+      /** The parked consumer. */
+      private volatile Thread consumer;
+
+      /** The parked producer. */
+      private volatile Thread producer;
+
+      /** Set when the navigation is closed. */
+      private volatile boolean closed;
+
+      /** Set when the producer does not read the stream anymore. */
+      private boolean finished;
+
+      private Pipeline(Document owner, int capacity)
+      {
+         int size = 1;
+         while (size < capacity)
+         {
+            size <<= 1;
+         }
+
+         //
+         this.source = new Document(owner.naming, owner.stream);
+         this.owner = new WeakReference<Document>(owner);
+         this.ring = new Object[size];
+         this.mask = size - 1;
+         this.head = 0;
+         this.tail = 0;
+      }
+
+      public void run()
+      {
+         try
+         {
+            XMLStreamReader stream = source.stream;
+            Element parent = null;
+            while (true)
+            {
+               int type = stream.getEventType();
+               if (type == XMLStreamConstants.START_ELEMENT)
                {
-                  content = sb;
+                  parent = new Element(source, parent);
+                  if (!put(parent))
+                  {
+                     return;
+                  }
+               }
+               else if (type == XMLStreamConstants.END_ELEMENT)
+               {
+                  parent = parent.getParent();
+                  stream.next();
+               }
+               else if (type == XMLStreamConstants.END_DOCUMENT)
+               {
+                  put(END);
+                  return;
                }
                else
                {
-                  content = chunk;
+                  stream.next();
+               }
+            }
+         }
+         catch (Throwable t)
+         {
+            put(t);
+         }
+         finally
+         {
+            finish();
+         }
+      }
+
+      /**
+       * Stops the producer when the navigation is closed.
+       *
+       * @return true if the producer does not read the stream anymore and the caller must close it
+       */
+      private synchronized boolean close()
+      {
+         closed = true;
+         Thread producer = this.producer;
+         if (producer != null)
+         {
+            LockSupport.unpark(producer);
+         }
+         return finished;
+      }
+
+      /**
+       * Called by the producer when it stops reading the stream, the stream is closed when the navigation was
+       * closed while it was reading.
+       */
+      private void finish()
+      {
+         boolean close;
+         synchronized (this)
+         {
+            finished = true;
+            close = closed;
+         }
+         if (close)
+         {
+            try
+            {
+               source.stream.close();
+            }
+            catch (XMLStreamException ignore)
+            {
+               // There is nobody to report the failure to
+            }
+         }
+      }
+
+      /**
+       * Publishes an item, waits while the ring is full.
+       *
+       * @param item the item
+       * @return false if the navigation was closed or abandoned
+       */
+      private boolean put(Object item)
+      {
+         if (closed)
+         {
+            return false;
+         }
+         long tail = this.tail;
+         while (tail - head == ring.length)
+         {
+            producer = Thread.currentThread();
+            if (tail - head == ring.length && !closed)
+            {
+               LockSupport.parkNanos(OWNER_CHECK_NANOS);
+               if (owner.get() == null)
+               {
+                  producer = null;
+                  return false;
                }
+            }
+            producer = null;
+            if (closed)
+            {
+               return false;
+            }
+         }
+         ring[(int)tail & mask] = item;
+         this.tail = tail + 1;
+         Thread consumer = this.consumer;
+         if (consumer != null)
+         {
+            LockSupport.unpark(consumer);
+         }
+         return true;
+      }
+
+      /**
+       * Takes the next element, waits while the ring is empty. The end of the document and the failure of the
+       * producer are not taken so that they are observed again by the following calls.
+       *
+       * @return the next element or null at the end of the document
+       * @throws IllegalStateException if the navigation is closed
+       * @throws StaxNavException the failure of the producer
+       */
+      private Element take() throws IllegalStateException, StaxNavException
+      {
+         if (closed)
+         {
+            throw new IllegalStateException("The navigator is closed");
+         }
+         long head = this.head;
+         while (head == tail)
+         {
+            consumer = Thread.currentThread();
+            if (head == tail)
+            {
+               LockSupport.park();
+            }
+            consumer = null;
+         }
+         int index = (int)head & mask;
+         Object item = ring[index];
+         if (item instanceof Element)
+         {
+            ring[index] = null;
+            this.head = head + 1;
+            Thread producer = this.producer;
+            if (producer != null)
+            {
+               LockSupport.unpark(producer);
+            }
+            return (Element)item;
+         }
+         else if (item == END)
+         {
+            return null;
+         }
+         else if (item instanceof XMLStreamException)
+         {
+            throw new StaxNavException((XMLStreamException)item);
+         }
+         else if (item instanceof RuntimeException)
+         {
+            throw (RuntimeException)item;
+         }
+         else
+         {
+            throw (Error)item;
+         }
+      }
+   }
+
+   /**
+    * The state shared by the entries of a document.
+    */
+   private static class Document
+   {
+
+      /** . */
+      private final Naming<?> naming;
+
+      /** . */
+      private final XMLStreamReader stream;
+
+      /** . */
+      private boolean contentOnDemand;
+
+      /** . */
+      private LocationCapture locationCapture;
+
+      /** . */
+      private boolean subtreeSkipping;
+
+      /**
+       * The number of forks that may reference entries of the document, it only decreases when a navigator scoped by
+       * {@link StaxNavigatorImpl#fork(Axis, Object, Parser)} is released since the other forks are never released.
+       */
+      private int forks;
+
+      /** The element whose content is not read yet, the stream points to its start when it is not null. */
+      private Element pending;
+
+      /** The element whose content is being streamed, the stream points to its content when it is not null. */
+      private Element streamed;
+
+      /** The operations specific to the stream implementation. */
+      private final StreamSupport support;
+
+      /** . */
+      private boolean closed;
+
+      /** The public id of the compact locations. */
+      private String publicId;
+
+      /** The system id of the compact locations. */
+      private String systemId;
+
+      /** The pipeline reading the elements when the navigation is pipelined. */
+      private Pipeline pipeline;
+
+      private Document(Naming<?> naming, XMLStreamReader stream)
+      {
+         this.naming = naming;
+         this.stream = stream;
+         this.support = StreamSupport.get(stream);
+         this.contentOnDemand = false;
+         this.locationCapture = LocationCapture.FULL;
+         this.subtreeSkipping = false;
+         this.forks = 0;
+         this.pending = null;
+         this.closed = false;
+      }
+
+      /**
+       * Reads the content of the pending element.
+       *
+       * @param element the element
+       * @throws XMLStreamException any XMLStreamException
+       */
+      private void read(Element element) throws XMLStreamException
+      {
+         if (pending == element)
+         {
+            pending = null;
+            element.content = readContent(stream, true);
+         }
+         else
+         {
+            // Should not happen since the pending element content is updated when it is skipped
+            element.content = Element.SKIPPED;
+         }
+      }
+
+      /**
+       * Skips the content of the pending element if there is one.
+       *
+       * @throws XMLStreamException any XMLStreamException
+       */
+      private void skip() throws XMLStreamException
+      {
+         if (pending != null)
+         {
+            Element element = pending;
+            pending = null;
+            element.content = readContent(stream, false);
+         }
+
+         // The remaining content events will be skipped by the navigation
+         streamed = null;
+      }
+
+      /**
+       * Starts to stream the content of the pending element, the content is not available anymore.
+       *
+       * @param element the element
+       * @return true if the content can be streamed from the stream
+       */
+      private boolean stream(Element element)
+      {
+         if (pending == element)
+         {
+            pending = null;
+            streamed = element;
+            element.content = Element.SKIPPED;
+            return true;
+         }
+         else
+         {
+            return false;
+         }
+      }
+
+      /**
+       * Reads the content of the element whose start is pointed to by the stream. When we leave we assume
+       * that we are positionned on the next element start, element end or the document end. When the content
+       * is not captured and the element has a non empty textual content, then {@link Element#SKIPPED} is
+       * returned.
+       *
+       * @param stream the stream
+       * @param capture true if the content should be captured
+       * @return the content
+       * @throws XMLStreamException any XMLStreamException
+       */
+      private static Object readContent(XMLStreamReader stream, boolean capture) throws XMLStreamException
+      {
+         StringBuilder sb = null;
+         String chunk = null;
+         boolean text = false;
+         while (true)
+         {
+            stream.next();
+            int type = stream.getEventType();
+            if (type == XMLStreamConstants.END_DOCUMENT || type == XMLStreamConstants.START_ELEMENT)
+            {
+               return null;
+            }
+            else if (type == XMLStreamConstants.CHARACTERS)
+            {
+               if (!capture)
+               {
+                  text = true;
+               }
+               else if (chunk == null)
+               {
+                  chunk = stream.getText();
+               }
+               else
+               {
+                  if (sb == null)
+                  {
+                     sb = new StringBuilder(chunk);
+                  }
+                  sb.append(stream.getText());
+               }
+            }
+            else if (type == XMLStreamConstants.END_ELEMENT)
+            {
+               if (!capture)
+               {
+                  return text ? Element.SKIPPED : null;
+               }
+               else if (sb != null)
+               {
+                  return sb;
+               }
+               else
+               {
+                  return chunk;
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * Reads the content of an element from the stream, the reader stops when the document navigation moves the stream.
+    */
+   private static class ContentReader extends Reader
+   {
+
+      /** . */
+      private final Document document;
+
+      /** . */
+      private final Element element;
+
+      /** The offset in the text of the current event or -1 when the current event is not a text. */
+      private int offset;
+
+      /** . */
+      private boolean done;
+
+      private ContentReader(Document document, Element element)
+      {
+         this.document = document;
+         this.element = element;
+         this.offset = -1;
+         this.done = false;
+      }
+
+      @Override
+      public int read(char[] buffer, int off, int len) throws IOException
+      {
+         if (len == 0)
+         {
+            return 0;
+         }
+         try
+         {
+            XMLStreamReader stream = document.stream;
+            while (!done && document.streamed == element)
+            {
+               if (offset >= 0)
+               {
+                  int count = stream.getTextCharacters(offset, buffer, off, len);
+                  if (count > 0)
+                  {
+                     offset += count;
+                     return count;
+                  }
+               }
+               int type = stream.next();
+               if (type == XMLStreamConstants.CHARACTERS)
+               {
+                  offset = 0;
+               }
+               else if (type == XMLStreamConstants.START_ELEMENT || type == XMLStreamConstants.END_ELEMENT || type == XMLStreamConstants.END_DOCUMENT)
+               {
+                  document.streamed = null;
+               }
+               else
+               {
+                  offset = -1;
+               }
+            }
+            done = true;
+            return -1;
+         }
+         catch (XMLStreamException e)
+         {
+            IOException ioe = new IOException("Could not read the content of the element " + element.getLocalPart());
+            ioe.initCause(e);
+            throw ioe;
+         }
+      }
+
+      @Override
+      public void close() throws IOException
+      {
+         done = true;
+      }
+   }
+
+   private static class Element
+   {
+
+      /** The content of an element that was skipped. */
+      private static final Object SKIPPED = new Object();
+
+      /** . */
+      private final Element parent;
+
+      /** . */
+      private final String localPart;
+
+      /** The name resolved by the naming of the document. */
+      private final Object name;
+
+      /** . */
+      private final int depth;
+
+      /**
+       * The content: a String or a StringBuilder until it is requested, null when there is no content,
+       * {@link #SKIPPED} when the content was skipped or the Document while the content is pending.
+       */
+      private Object content;
+
+      /** The start of the trimmed content or -1 when it is not computed yet. */
+      private int trimmedStart;
+
+      /** The end of the trimmed content. */
+      private int trimmedEnd;
+
+      /** Lazily computed from the content. */
+      private String trimmedContent;
+
+      /** The location when it is fully captured. */
+      private final Location location;
+
+      /** The line number when the location is compact or -2 when it is not captured. */
+      private final int line;
+
+      /** The column number when the location is compact. */
+      private final int column;
+
+      /** The character offset when the location is compact. */
+      private final int offset;
+
+      /** The attributes as a sequence of (namespace URI, local part, prefix, value) or null when there are none. */
+      private final String[] attributes;
+
+      /** Lazily built from the attributes. */
+      private Map<String, String> attributeMap;
+
+      /** Lazily built from the attributes. */
+      private Map<QName, String> qualifiedAttributeMap;
+
+      /** . */
+      private final NamespaceScope namespaces;
+
+      private Element(Document document, Element parent) throws XMLStreamException
+      {
+         XMLStreamReader stream = document.stream;
+
+         // We assume that the stream points to the start of the modelled element
+         if (stream.getEventType() != XMLStreamConstants.START_ELEMENT)
+         {
+            throw new AssertionError();
+         }
+
+         //
+         String localPart = stream.getLocalName();
+         Object name = document.naming.getName(stream);
+         Location location = null;
+         int line = -2;
+         int column = -1;
+         int offset = -1;
+         switch (document.locationCapture)
+         {
+            case FULL:
+               location = stream.getLocation();
+               break;
+            case COMPACT:
+               Location current = stream.getLocation();
+               if (document.systemId == null && document.publicId == null)
+               {
+                  document.systemId = current.getSystemId();
+                  document.publicId = current.getPublicId();
+               }
+               line = current.getLineNumber();
+               column = current.getColumnNumber();
+               offset = current.getCharacterOffset();
                break;
+         }
+
+         //
+         String[] attributes;
+         int attributeCount = stream.getAttributeCount();
+         if (attributeCount > 0)
+         {
+            attributes = new String[attributeCount * 4];
+            for (int i = 0, j = 0;i < attributeCount;i++)
+            {
+               String attributeURI = stream.getAttributeNamespace(i);
+               String attributePrefix = stream.getAttributePrefix(i);
+               attributes[j++] = attributeURI != null ? attributeURI : XMLConstants.NULL_NS_URI;
+               attributes[j++] = stream.getAttributeLocalName(i);
+               attributes[j++] = attributePrefix != null ? attributePrefix : XMLConstants.DEFAULT_NS_PREFIX;
+               attributes[j++] = stream.getAttributeValue(i);
             }
          }
+         else
+         {
+            attributes = null;
+         }
+
+         //
+         NamespaceScope namespaces = (parent != null ? parent.namespaces : NamespaceScope.EMPTY).push(stream);
+
+         //
+         Object content;
+         if (document.contentOnDemand)
+         {
+            content = document;
+            document.pending = this;
+         }
+         else
+         {
+            content = Document.readContent(stream, true);
+         }
 
          //
          int depth = 1 + (parent != null ? parent.getDepth() : 0);
 
          //
          this.parent = parent;
+         this.localPart = localPart;
          this.name = name;
          this.depth = depth;
          this.content = content;
+         this.trimmedStart = -1;
          this.attributes = attributes;
-         this.qualifiedAttributes = qualifiedAttributes;
          this.namespaces = namespaces;
          this.location = location;
+         this.line = line;
+         this.column = column;
+         this.offset = offset;
       }
 
       protected Element getParent()
@@ -1020,32 +2260,50 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
          return parent;
       }
 
-      protected <N> N getName(Naming<N> naming)
+      protected <N> N getName()
       {
-         return naming.getName(getName());
+         // The name was resolved by the naming of the document
+         @SuppressWarnings("unchecked")
+         N name = (N)this.name;
+         return name;
       }
 
       protected String getNamespaceByPrefix(String namespacePrefix)
       {
-         for (Element current = this;current != null;current = current.getParent())
+         return namespaces.getNamespaceURI(namespacePrefix);
+      }
+
+      protected String getContent(boolean trim) throws StaxNavException
+      {
+         if (content instanceof Document)
          {
-            String namespaceURI = current.getNamespaces().get(namespacePrefix);
-            if (namespaceURI != null)
+            try
             {
-               return namespaceURI;
+               ((Document)content).read(this);
+            }
+            catch (XMLStreamException e)
+            {
+               throw new StaxNavException(e);
             }
          }
-         return null;
-      }
-
-      protected String getContent(boolean trim)
-      {
-         if (content != null)
+         if (content == SKIPPED)
+         {
+            throw new IllegalStateException("The content of the element " + localPart + " was skipped or streamed");
+         }
+         else if (content != null)
          {
-            String s = content.toString();
+            if (!(content instanceof String))
+            {
+               content = content.toString();
+            }
+            String s = (String)content;
             if (trim)
             {
-               s = s.trim();
+               if (trimmedContent == null)
+               {
+                  trimmedContent = s.substring(getTrimmedStart(), getTrimmedEnd());
+               }
+               s = trimmedContent;
             }
             return s;
          }
@@ -1055,9 +2313,36 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
          }
       }
 
-      protected QName getName()
+      /**
+       * Returns the start index of the trimmed content, the content must be available.
+       *
+       * @return the trimmed content start
+       */
+      protected int getTrimmedStart()
       {
-         return name;
+         if (trimmedStart == -1)
+         {
+            String s = (String)content;
+            trimmedStart = Chars.trimStart(s, 0, s.length());
+            trimmedEnd = Chars.trimEnd(s, trimmedStart, s.length());
+         }
+         return trimmedStart;
+      }
+
+      /**
+       * Returns the end index of the trimmed content, the content must be available.
+       *
+       * @return the trimmed content end
+       */
+      protected int getTrimmedEnd()
+      {
+         getTrimmedStart();
+         return trimmedEnd;
+      }
+
+      protected String getLocalPart()
+      {
+         return localPart;
       }
 
       protected int getDepth()
@@ -1065,30 +2350,145 @@ public class StaxNavigatorImpl<N> implements StaxNavigator<N>
          return depth;
       }
 
-      protected Location getLocation()
+      protected Location getLocation(Document document)
       {
-         return location;
+         if (location != null)
+         {
+            return location;
+         }
+         else if (line != -2)
+         {
+            return new CompactLocation(line, column, offset, document.publicId, document.systemId);
+         }
+         else
+         {
+            return null;
+         }
+      }
+
+      protected String getAttribute(String namespaceURI, String localPart)
+      {
+         if (attributes != null)
+         {
+            for (int i = 0;i < attributes.length;i += 4)
+            {
+               if (localPart.equals(attributes[i + 1]) && namespaceURI.equals(attributes[i]))
+               {
+                  return attributes[i + 3];
+               }
+            }
+         }
+         return null;
       }
 
       protected Map<String, String> getAttributes()
       {
-         return attributes;
+         if (attributeMap == null)
+         {
+            Map<String, String> map = null;
+            if (attributes != null)
+            {
+               for (int i = 0;i < attributes.length;i += 4)
+               {
+                  if (XMLConstants.NULL_NS_URI.equals(attributes[i]))
+                  {
+                     if (map == null)
+                     {
+                        map = new HashMap<String, String>();
+                     }
+                     map.put(attributes[i + 1], attributes[i + 3]);
+                  }
+               }
+            }
+            attributeMap = map != null ? Collections.unmodifiableMap(map) : Collections.<String, String>emptyMap();
+         }
+         return attributeMap;
       }
 
       protected Map<QName, String> getQualifiedAttributes()
       {
-         return qualifiedAttributes;
+         if (qualifiedAttributeMap == null)
+         {
+            if (attributes != null)
+            {
+               Map<QName, String> map = new HashMap<QName, String>();
+               for (int i = 0;i < attributes.length;i += 4)
+               {
+                  map.put(new QName(attributes[i], attributes[i + 1], attributes[i + 2]), attributes[i + 3]);
+               }
+               qualifiedAttributeMap = Collections.unmodifiableMap(map);
+            }
+            else
+            {
+               qualifiedAttributeMap = Collections.emptyMap();
+            }
+         }
+         return qualifiedAttributeMap;
+      }
+
+      @Override
+      public String toString()
+      {
+         return "Element[name=" + localPart + ",location=" + (location != null ? location : "[" + line + "," + column + "]") + "]";
+      }
+   }
+
+   static class CompactLocation implements Location
+   {
+
+      /** . */
+      private final int line;
+
+      /** . */
+      private final int column;
+
+      /** . */
+      private final int offset;
+
+      /** . */
+      private final String publicId;
+
+      /** . */
+      private final String systemId;
+
+      CompactLocation(int line, int column, int offset, String publicId, String systemId)
+      {
+         this.line = line;
+         this.column = column;
+         this.offset = offset;
+         this.publicId = publicId;
+         this.systemId = systemId;
+      }
+
+      public int getLineNumber()
+      {
+         return line;
+      }
+
+      public int getColumnNumber()
+      {
+         return column;
+      }
+
+      public int getCharacterOffset()
+      {
+         return offset;
+      }
+
+      public String getPublicId()
+      {
+         return publicId;
       }
 
-      protected Map<String, String> getNamespaces()
+      public String getSystemId()
       {
-         return namespaces;
+         return systemId;
       }
 
       @Override
       public String toString()
       {
-         return "Element[name=" + name + ",location=" + location + "]";
+         return "Location[line=" + line + ",column=" + column + ",offset=" + offset + "]";
       }
    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The stream operations of the navigator that a stream implementation can perform faster than the portable
+ * <code>javax.xml.stream</code> code. The support of a stream is selected once by {@link #get(XMLStreamReader)} and
+ * this class provides the portable implementation.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+class StreamSupport
+{
+
+   /** . */
+   static final StreamSupport PORTABLE = new StreamSupport();
+
+   /**
+    * Returns the support of a stream.
+    *
+    * @param stream the stream
+    * @return the stream support
+    */
+   static StreamSupport get(XMLStreamReader stream)
+   {
+      if (Stax2StreamSupport.AVAILABLE && Stax2StreamSupport.isStax2(stream))
+      {
+         return Stax2StreamSupport.INSTANCE;
+      }
+      else
+      {
+         return PORTABLE;
+      }
+   }
+
+   StreamSupport()
+   {
+   }
+
+   /**
+    * Skips the element whose start is pointed to by the stream. When we leave the stream points to the element end.
+    *
+    * @param stream the stream
+    * @throws XMLStreamException any XMLStreamException
+    */
+   void skipElement(XMLStreamReader stream) throws XMLStreamException
+   {
+      int open = 1;
+      while (true)
+      {
+         int type = stream.next();
+         if (type == XMLStreamConstants.START_ELEMENT)
+         {
+            open++;
+         }
+         else if (type == XMLStreamConstants.END_ELEMENT)
+         {
+            if (--open == 0)
+            {
+               break;
+            }
+         }
+         else if (type == XMLStreamConstants.END_DOCUMENT)
+         {
+            break;
+         }
+      }
+   }
+
+   /**
+    * Skips the remaining content of the element the stream is within, the stream points to an event of the element
+    * content or to the element end. When we leave the stream points to the element end or the document end.
+    *
+    * @param stream the stream
+    * @throws XMLStreamException any XMLStreamException
+    */
+   void skipContent(XMLStreamReader stream) throws XMLStreamException
+   {
+      while (true)
+      {
+         int type = stream.getEventType();
+         if (type == XMLStreamConstants.START_ELEMENT)
+         {
+            skipElement(stream);
+            if (stream.getEventType() == XMLStreamConstants.END_DOCUMENT)
+            {
+               break;
+            }
+         }
+         else if (type == XMLStreamConstants.END_ELEMENT || type == XMLStreamConstants.END_DOCUMENT)
+         {
+            break;
+         }
+         stream.next();
+      }
+   }
+
+   /**
+    * Decodes the content of the element whose start is pointed to by the stream. When we leave the stream
+    * points to the element end.
+    *
+    * @param stream the stream
+    * @param encoding the encoding of the content
+    * @param out the output stream
+    * @return the number of decoded bytes
+    * @throws IllegalStateException if the element has a mixed content
+    * @throws IllegalArgumentException when the content is not valid for the encoding
+    * @throws XMLStreamException any XMLStreamException
+    * @throws IOException any exception thrown by the output stream
+    */
+   int readElementAsBinary(XMLStreamReader stream, BinaryEncoding encoding, OutputStream out) throws IllegalStateException, IllegalArgumentException, XMLStreamException, IOException
+   {
+      BinaryDecoder decoder = encoding.decoder(out);
+      while (true)
+      {
+         int type = stream.next();
+         if (type == XMLStreamConstants.CHARACTERS)
+         {
+            decoder.decode(stream.getTextCharacters(), stream.getTextStart(), stream.getTextLength());
+         }
+         else if (type == XMLStreamConstants.START_ELEMENT)
+         {
+            throw new IllegalStateException("No content available for decoding");
+         }
+         else if (type == XMLStreamConstants.END_ELEMENT || type == XMLStreamConstants.END_DOCUMENT)
+         {
+            return decoder.finish();
+         }
+      }
+   }
+}
@@ -20,6 +20,7 @@
 package org.staxnav;
 
 import javax.xml.bind.DatatypeConverter;
+import java.math.BigDecimal;
 import java.util.Date;
 
 /**
@@ -42,39 +43,115 @@ public abstract class ValueType<V>
       return new EnumType<E>(enumClass);
    }
 
-   public static final ValueType<String> STRING = new ValueType<String>()
+   public static final ValueType<String> STRING = new CharsType<String>()
    {
       @Override
-      protected String parse(String s) throws Exception
+      protected String parse(CharSequence s) throws Exception
       {
-         return s;
+         return s.toString();
       }
    };
 
-   public static final ValueType<String> TRIMMED_STRING = new ValueType<String>()
+   public static final ValueType<String> TRIMMED_STRING = new CharsType<String>()
    {
       @Override
-      protected String parse(String s) throws Exception
+      protected String parse(CharSequence s) throws Exception
       {
-         return s.trim();
+         int from = Chars.trimStart(s, 0, s.length());
+         int to = Chars.trimEnd(s, from, s.length());
+         return s.subSequence(from, to).toString();
       }
    };
 
-   public static final ValueType<Boolean> BOOLEAN = new ValueType<Boolean>()
+   public static final ValueType<Boolean> BOOLEAN = new CharsType<Boolean>()
    {
       @Override
-      protected Boolean parse(String s) throws Exception
+      protected Boolean parse(CharSequence s) throws Exception
       {
-         return Boolean.parseBoolean(s.trim());
+         int from = Chars.trimStart(s, 0, s.length());
+         int to = Chars.trimEnd(s, from, s.length());
+         return Chars.equalsIgnoreCase(s, from, to, "true");
       }
    };
 
-   public static final ValueType<Integer> INTEGER = new ValueType<Integer>()
+   public static final ValueType<Integer> INTEGER = new CharsType<Integer>()
    {
       @Override
-      protected Integer parse(String s) throws Exception
+      protected Integer parse(CharSequence s) throws Exception
       {
-         return Integer.parseInt(s.trim());
+         int from = Chars.trimStart(s, 0, s.length());
+         int to = Chars.trimEnd(s, from, s.length());
+         return Chars.parseInt(s, from, to);
+      }
+   };
+
+   public static final ValueType<Long> LONG = new CharsType<Long>()
+   {
+      @Override
+      protected Long parse(CharSequence s) throws Exception
+      {
+         int from = Chars.trimStart(s, 0, s.length());
+         int to = Chars.trimEnd(s, from, s.length());
+         return Chars.parseLong(s, from, to);
+      }
+   };
+
+   public static final ValueType<Short> SHORT = new CharsType<Short>()
+   {
+      @Override
+      protected Short parse(CharSequence s) throws Exception
+      {
+         int from = Chars.trimStart(s, 0, s.length());
+         int to = Chars.trimEnd(s, from, s.length());
+         return (short)Chars.parseLong(s, from, to, Short.MIN_VALUE, Short.MAX_VALUE);
+      }
+   };
+
+   public static final ValueType<Byte> BYTE = new CharsType<Byte>()
+   {
+      @Override
+      protected Byte parse(CharSequence s) throws Exception
+      {
+         int from = Chars.trimStart(s, 0, s.length());
+         int to = Chars.trimEnd(s, from, s.length());
+         return (byte)Chars.parseLong(s, from, to, Byte.MIN_VALUE, Byte.MAX_VALUE);
+      }
+   };
+
+   public static final ValueType<Double> DOUBLE = new CharsType<Double>()
+   {
+      @Override
+      protected Double parse(CharSequence s) throws Exception
+      {
+         int from = Chars.trimStart(s, 0, s.length());
+         int to = Chars.trimEnd(s, from, s.length());
+         return Chars.parseDouble(s, from, to);
+      }
+   };
+
+   public static final ValueType<Float> FLOAT = new CharsType<Float>()
+   {
+      @Override
+      protected Float parse(CharSequence s) throws Exception
+      {
+         int from = Chars.trimStart(s, 0, s.length());
+         int to = Chars.trimEnd(s, from, s.length());
+         return Chars.parseFloat(s, from, to);
+      }
+   };
+
+   public static final ValueType<BigDecimal> BIG_DECIMAL = new CharsType<BigDecimal>()
+   {
+      @Override
+      protected BigDecimal parse(CharSequence s) throws Exception
+      {
+         // The content is a string, the trimmed chars are copied once
+         String string = s.toString();
+         int from = Chars.trimStart(string, 0, string.length());
+         int to = Chars.trimEnd(string, from, string.length());
+         char[] chars = new char[to - from];
+         string.getChars(from, to, chars, 0);
+         return new BigDecimal(chars);
       }
    };
 
@@ -114,6 +191,23 @@ public abstract class ValueType<V>
       }
    }
 
+   /**
+    * The base of the value types parsing the chars without creating a string.
+    */
+   abstract static class CharsType<V> extends ValueType<V>
+   {
+
+      @Override
+      protected V parse(String s) throws Exception
+      {
+         return parse((CharSequence)s);
+      }
+
+      @Override
+      protected abstract V parse(CharSequence s) throws Exception;
+
+   }
+
    protected ValueType()
    {
    }
@@ -127,4 +221,18 @@ public abstract class ValueType<V>
     */
    protected abstract V parse(String s) throws Exception;
 
+   /**
+    * Parse the chars to the java type for a non null parameter value. The chars must not be retained after the method
+    * returns. The default implementation parses the string value of the chars with the {@link #parse(String)} method,
+    * a subclass can override it to parse the chars without creating a string.
+    *
+    * @param s the chars to parse
+    * @return the parsed value
+    * @throws Exception any exception that would prevent the type conversion to happen
+    */
+   protected V parse(CharSequence s) throws Exception
+   {
+      return parse(s.toString());
+   }
+
 }
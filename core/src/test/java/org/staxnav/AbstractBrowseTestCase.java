@@ -20,8 +20,12 @@ package org.staxnav;/*
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamReader;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -407,4 +411,140 @@ public abstract class AbstractBrowseTestCase<N> extends AbstractXMLTestCase
       assertFalse(i.hasNext());
       assertNameEquals("bar1", nav.getName());
    }
-}
\ No newline at end of file
+
+   public void testLazyFork1() throws Exception
+   {
+      StaxNavigator<N> nav = navigator("<foo1><bar1><foo2/></bar1><bar1/><bar2/><bar1><bar3/></bar1><foo3/></foo1>");
+      assertTrue(nav.find(createName("bar1")));
+      Iterator<StaxNavigator<N>> iterator = nav.lazyFork(createName("bar1")).iterator();
+      assertTrue(iterator.hasNext());
+      StaxNavigator<N> n1 = iterator.next();
+      assertNameEquals("bar1", n1.getName());
+      assertNameEquals("foo2", n1.next());
+      assertNull(n1.next());
+      assertEquals(2, nav.getDepth());
+      assertTrue(iterator.hasNext());
+      StaxNavigator<N> n2 = iterator.next();
+      assertNameEquals("bar1", n2.getName());
+      assertNull(n2.next());
+      assertTrue(iterator.hasNext());
+      StaxNavigator<N> n3 = iterator.next();
+      assertNameEquals("bar1", n3.getName());
+      assertNameEquals("bar3", n3.next());
+      assertNull(n3.next());
+      assertFalse(iterator.hasNext());
+      assertFalse(iterator.hasNext());
+      assertNameEquals("bar1", nav.getName());
+      assertNameEquals("bar3", nav.next());
+      assertNameEquals("foo3", nav.next());
+      assertNull(nav.next());
+   }
+
+   public void testLazyFork2() throws Exception
+   {
+      StaxNavigator<N> nav = navigator("<foo1><bar1/><bar2/></foo1>");
+      assertTrue(nav.find(createName("bar1")));
+      Iterator<StaxNavigator<N>> i = nav.lazyFork(createName("bar3")).iterator();
+      assertFalse(i.hasNext());
+      assertNameEquals("bar1", nav.getName());
+      try
+      {
+         i.next();
+         fail();
+      }
+      catch (NoSuchElementException ignore)
+      {
+      }
+   }
+
+   public void testLazyForkIsLazy() throws Exception
+   {
+      StaxNavigator<N> nav = navigator("<foo1><bar1/><bar2/><bar1/></foo1>");
+      assertTrue(nav.find(createName("bar2")));
+      Iterable<StaxNavigator<N>> iterable = nav.lazyFork(createName("bar1"));
+      assertNameEquals("bar2", nav.getName());
+      Iterator<StaxNavigator<N>> i = iterable.iterator();
+      assertNameEquals("bar2", nav.getName());
+      StaxNavigator<N> bar1 = i.next();
+      assertNameEquals("bar1", bar1.getName());
+      assertFalse(i.hasNext());
+      try
+      {
+         iterable.iterator();
+         fail();
+      }
+      catch (IllegalStateException ignore)
+      {
+      }
+   }
+
+   public void testParserFork1() throws Exception
+   {
+      StaxNavigator<N> nav = navigator("<foo1><bar1><foo2/></bar1><bar1/><bar2/><bar1><bar3/></bar1><foo3/></foo1>");
+      assertTrue(nav.find(createName("bar1")));
+      final List<N> names = new ArrayList<N>();
+      final List<StaxNavigator<N>> scoped = new ArrayList<StaxNavigator<N>>();
+      int count = nav.fork(createName("bar1"), new Parser<N>()
+      {
+         public void parse(StaxNavigator<N> navigator) throws StaxNavException
+         {
+            assertNameEquals("bar1", navigator.getName());
+            N name;
+            while ((name = navigator.next()) != null)
+            {
+               names.add(name);
+            }
+            scoped.add(navigator);
+         }
+      });
+      assertEquals(3, count);
+      assertEquals(Arrays.asList(createName("foo2"), createName("bar3")), names);
+      for (StaxNavigator<N> navigator : scoped)
+      {
+         assertNull(navigator.getName());
+      }
+      assertNameEquals("bar1", nav.getName());
+      assertNameEquals("bar3", nav.next());
+      assertNameEquals("foo3", nav.next());
+      assertNull(nav.next());
+   }
+
+   public void testParserFork2() throws Exception
+   {
+      StaxNavigator<N> nav = navigator("<foo1><bar1/><bar2/></foo1>");
+      assertTrue(nav.find(createName("bar1")));
+      int count = nav.fork(createName("bar3"), new Parser<N>()
+      {
+         public void parse(StaxNavigator<N> navigator) throws StaxNavException
+         {
+            fail();
+         }
+      });
+      assertEquals(0, count);
+      assertNameEquals("bar1", nav.getName());
+   }
+
+   public void testParserForkFailure() throws Exception
+   {
+      StaxNavigator<N> nav = navigator("<foo1><bar1/><bar1/></foo1>");
+      assertTrue(nav.find(createName("bar1")));
+      final RuntimeException failure = new RuntimeException();
+      try
+      {
+         nav.fork(createName("bar1"), new Parser<N>()
+         {
+            public void parse(StaxNavigator<N> navigator) throws StaxNavException
+            {
+               throw failure;
+            }
+         });
+         fail();
+      }
+      catch (RuntimeException e)
+      {
+         assertSame(failure, e);
+      }
+      assertNameEquals("bar1", nav.getName());
+      assertNameEquals("bar1", nav.next());
+   }
+}
@@ -100,4 +100,14 @@ public abstract class AbstractEnumeratedBrowseTestCase extends AbstractBrowseTes
       StaxNavigator<SampleName> nav = navigator(getNaming(), "<foo><zorglub/></foo>");
       assertEquals(1, nav.descendant(SampleName.DONOTEXIST));
    }
+
+   public void testGetNameFromChars()
+   {
+      Naming.Enumerated<SampleName> naming = (Naming.Enumerated<SampleName>)getNaming();
+      char[] chars = "<foobar1>".toCharArray();
+      assertEquals(SampleName.FOOBAR1, naming.getName(chars, 1, 7));
+      assertEquals(SampleName.FOO1, naming.getName("foo1".toCharArray(), 0, 4));
+      assertEquals(SampleName.DONOTEXIST, naming.getName(chars, 1, 6));
+      assertEquals(SampleName.DONOTEXIST, naming.getName(chars, 0, 0));
+   }
 }
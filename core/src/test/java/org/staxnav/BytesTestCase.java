@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+/**
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public class BytesTestCase extends TestCase
+{
+
+   public void testIndexOf()
+   {
+      byte[] bytes = new byte[64];
+      Random random = new Random(0);
+      byte[] values = {0, 1, '<', 0x7F, (byte)0x80, (byte)0xFF};
+      for (int round = 0;round < 20;round++)
+      {
+         for (int i = 0;i < bytes.length;i++)
+         {
+            bytes[i] = values[random.nextInt(values.length)];
+         }
+         ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+         for (byte b : values)
+         {
+            for (int from = 0;from < bytes.length;from++)
+            {
+               for (int to = from;to <= bytes.length;to += 3)
+               {
+                  assertEquals(indexOf(bytes, from, to, b), Bytes.indexOf(buffer, from, to, b));
+               }
+            }
+         }
+      }
+   }
+
+   public void testIndexOfAnyPosition()
+   {
+      byte[] bytes = new byte[40];
+      ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+      for (int i = 0;i < bytes.length;i++)
+      {
+         bytes[i] = '<';
+         assertEquals(i, Bytes.indexOf(buffer, 0, bytes.length, (byte)'<'));
+         assertEquals(-1, Bytes.indexOf(buffer, 0, i, (byte)'<'));
+         assertEquals(-1, Bytes.indexOf(buffer, i + 1, bytes.length, (byte)'<'));
+         bytes[i] = 0;
+      }
+   }
+
+   public void testBigEndian()
+   {
+      try
+      {
+         Bytes.indexOf(ByteBuffer.allocate(8), 0, 8, (byte)0);
+         fail();
+      }
+      catch (IllegalArgumentException ignore)
+      {
+      }
+   }
+
+   private static int indexOf(byte[] bytes, int from, int to, byte b)
+   {
+      for (int i = from;i < to;i++)
+      {
+         if (bytes[i] == b)
+         {
+            return i;
+         }
+      }
+      return -1;
+   }
+}
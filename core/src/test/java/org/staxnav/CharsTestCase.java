@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import junit.framework.TestCase;
+
+/**
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public class CharsTestCase extends TestCase
+{
+
+   public void testTrim()
+   {
+      String s = " \t\n a b \r\n";
+      int from = Chars.trimStart(s, 0, s.length());
+      int to = Chars.trimEnd(s, from, s.length());
+      assertEquals("a b", s.substring(from, to));
+      assertEquals(3, Chars.trimStart("   ", 0, 3));
+      assertEquals(0, Chars.trimEnd("   ", 0, 3));
+   }
+
+   public void testParseInt()
+   {
+      assertEquals(0, parseInt("0"));
+      assertEquals(123, parseInt("+123"));
+      assertEquals(-123, parseInt("-123"));
+      assertEquals(Integer.MAX_VALUE, parseInt("2147483647"));
+      assertEquals(Integer.MIN_VALUE, parseInt("-2147483648"));
+      assertInvalidInt("2147483648");
+      assertInvalidInt("-2147483649");
+      assertInvalidInt("");
+      assertInvalidInt("-");
+      assertInvalidInt("1a");
+      assertInvalidInt("1.0");
+   }
+
+   public void testParseLong()
+   {
+      assertEquals(Long.MAX_VALUE, Chars.parseLong("9223372036854775807", 0, 19));
+      assertEquals(Long.MIN_VALUE, Chars.parseLong("-9223372036854775808", 0, 20));
+      try
+      {
+         Chars.parseLong("9223372036854775808", 0, 19);
+         fail();
+      }
+      catch (NumberFormatException ignore)
+      {
+      }
+   }
+
+   public void testParseDouble()
+   {
+      String[] values = {
+         "0", "-0", "1", "-1", "1.5", ".5", "5.", "0.1", "0.3", "123.456", "1e10", "1E-10", "-2.5e+3",
+         "123456789012345", "1234567890123456789", "12345678901234567890123", "0.000000000000000000000000001",
+         "1e22", "1e23", "1e-22", "1e-23", "1.7976931348623157e308", "4.9e-324", "1e400", "NaN", "-Infinity",
+         "9007199254740993", "0.1e1", "000012.5000"
+      };
+      for (String value : values)
+      {
+         double expected = Double.parseDouble(value);
+         double parsed = Chars.parseDouble(value, 0, value.length());
+         assertEquals(value, Double.doubleToLongBits(expected), Double.doubleToLongBits(parsed));
+      }
+      String[] invalids = {"", "-", ".", "e5", "1e", "1e+", "1.2.3", "1x", "--1"};
+      for (String invalid : invalids)
+      {
+         try
+         {
+            Chars.parseDouble(invalid, 0, invalid.length());
+            fail("Was expecting " + invalid + " to fail");
+         }
+         catch (NumberFormatException ignore)
+         {
+         }
+      }
+   }
+
+   public void testParseFloat()
+   {
+      String[] values = {
+         "0", "-0", "1", "0.1", "0.3", "3.4028235e38", "1.4e-45", "16777216", "16777217", "1e10", "1e-10", "1e11",
+         "123.456", "0.000001", "1e50", "NaN"
+      };
+      for (String value : values)
+      {
+         float expected = Float.parseFloat(value);
+         float parsed = Chars.parseFloat(value, 0, value.length());
+         assertEquals(value, Float.floatToIntBits(expected), Float.floatToIntBits(parsed));
+      }
+   }
+
+   public void testParseBoolean()
+   {
+      assertTrue(Chars.parseBoolean("true", 0, 4));
+      assertTrue(Chars.parseBoolean("True", 0, 4));
+      assertTrue(Chars.parseBoolean("1", 0, 1));
+      assertFalse(Chars.parseBoolean("false", 0, 5));
+      assertFalse(Chars.parseBoolean("0", 0, 1));
+      try
+      {
+         Chars.parseBoolean("yes", 0, 3);
+         fail();
+      }
+      catch (IllegalArgumentException ignore)
+      {
+      }
+   }
+
+   private int parseInt(String s)
+   {
+      return Chars.parseInt(s, 0, s.length());
+   }
+
+   private void assertInvalidInt(String s)
+   {
+      try
+      {
+         parseInt(s);
+         fail("Was expecting " + s + " to fail");
+      }
+      catch (NumberFormatException ignore)
+      {
+      }
+   }
+}
@@ -18,6 +18,13 @@ package org.staxnav;/*
  */
 
 import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 
 /**
  * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
@@ -41,4 +48,302 @@ public class ContentTestCase extends AbstractXMLTestCase
       nav.setTrimContent(true);
       assertEquals("abc", nav.getContent());
    }
+
+   public void testCachedContent() throws XMLStreamException
+   {
+      StaxNavigator<String> nav = navigator(new Naming.Local(), "<foo> a &amp; b </foo>");
+      String content = nav.getContent();
+      assertEquals(" a & b ", content);
+      assertSame(content, nav.getContent());
+      nav.setTrimContent(true);
+      String trimmed = nav.getContent();
+      assertEquals("a & b", trimmed);
+      assertSame(trimmed, nav.getContent());
+      assertSame(trimmed, nav.parseContent(ValueType.STRING));
+   }
+
+   public void testContentOnDemand() throws XMLStreamException
+   {
+      StaxNavigatorImpl<String> nav = (StaxNavigatorImpl<String>)navigator(new Naming.Local(), "<foo><bar> 1 </bar><juu>2</juu><daa>3</daa><mixed>a<b/></mixed><empty/></foo>");
+      nav.setContentOnDemand(true);
+      assertEquals("foo", nav.getName());
+      assertEquals(null, nav.getContent());
+      assertEquals("bar", nav.child());
+      assertEquals(" 1 ", nav.getContent());
+      assertEquals(1, (int)nav.parseContent(ValueType.INTEGER));
+      assertEquals("juu", nav.sibling());
+      StaxNavigator<String> juu = nav.fork(Axis.FOLLOWING_SIBLING);
+      assertEquals("juu", juu.getName());
+      assertEquals("daa", nav.getName());
+      try
+      {
+         juu.getContent();
+         fail();
+      }
+      catch (IllegalStateException ignore)
+      {
+      }
+      assertEquals("3", nav.getContent());
+      assertEquals("mixed", nav.sibling());
+      assertEquals(null, nav.getContent());
+      assertEquals("empty", nav.sibling());
+      assertEquals(null, nav.getContent());
+      assertEquals(null, nav.sibling());
+   }
+
+   public void testSkippedMixedContent() throws XMLStreamException
+   {
+      StaxNavigatorImpl<String> nav = (StaxNavigatorImpl<String>)navigator(new Naming.Local(), "<foo>abc<bar/></foo>");
+      nav.setContentOnDemand(true);
+      StaxNavigator<String> foo = nav.fork();
+      assertEquals("bar", nav.next());
+      assertEquals(null, foo.getContent());
+   }
+
+   public void testPrimitiveContent() throws XMLStreamException
+   {
+      StaxNavigator<String> nav = navigator(new Naming.Local(),
+         "<foo><int> -12 </int><long>9223372036854775807</long><double>\n1.5e3 </double><boolean>TRUE</boolean>" +
+         "<split>4&#x32;</split><invalid>1O</invalid><empty/></foo>");
+      try
+      {
+         nav.getIntContent();
+         fail();
+      }
+      catch (IllegalStateException ignore)
+      {
+      }
+      assertEquals("int", nav.child());
+      assertEquals(-12, nav.getIntContent());
+      assertEquals(-12L, nav.getLongContent());
+      assertEquals(-12d, nav.getDoubleContent());
+      assertEquals("long", nav.sibling());
+      assertEquals(Long.MAX_VALUE, nav.getLongContent());
+      try
+      {
+         nav.getIntContent();
+         fail();
+      }
+      catch (TypeConversionException e)
+      {
+         assertNotNull(e.getLocation());
+         assertTrue(e.getCause() instanceof NumberFormatException);
+      }
+      assertEquals("double", nav.sibling());
+      assertEquals(1500d, nav.getDoubleContent());
+      assertEquals("boolean", nav.sibling());
+      assertTrue(nav.getBooleanContent());
+      assertEquals("split", nav.sibling());
+      assertEquals(42, nav.getIntContent());
+      assertEquals("invalid", nav.sibling());
+      try
+      {
+         nav.getIntContent();
+         fail();
+      }
+      catch (TypeConversionException ignore)
+      {
+      }
+      try
+      {
+         nav.getBooleanContent();
+         fail();
+      }
+      catch (TypeConversionException ignore)
+      {
+      }
+      assertEquals("empty", nav.sibling());
+      try
+      {
+         nav.getLongContent();
+         fail();
+      }
+      catch (IllegalStateException ignore)
+      {
+      }
+   }
+
+   public void testValueTypes() throws Exception
+   {
+      StaxNavigator<String> nav = navigator(new Naming.Local(),
+         "<foo><a> 9223372036854775807 </a><b>-32768</b><c>127</c><d>2.5</d><e>0.1</e><f> 1.10 </f><g>128</g>" +
+         "<h> TRUE </h><i> a </i></foo>");
+      assertEquals("a", nav.child());
+      assertEquals(Long.MAX_VALUE, (long)nav.parseContent(ValueType.LONG));
+      assertEquals("b", nav.sibling());
+      assertEquals(Short.MIN_VALUE, (short)nav.parseContent(ValueType.SHORT));
+      assertEquals("c", nav.sibling());
+      assertEquals(Byte.MAX_VALUE, (byte)nav.parseContent(ValueType.BYTE));
+      assertEquals("d", nav.sibling());
+      assertEquals(2.5d, nav.parseContent(ValueType.DOUBLE));
+      assertEquals("e", nav.sibling());
+      assertEquals(0.1f, nav.parseContent(ValueType.FLOAT));
+      assertEquals("f", nav.sibling());
+      assertEquals(new BigDecimal("1.10"), nav.parseContent(ValueType.BIG_DECIMAL));
+      assertEquals("g", nav.sibling());
+      try
+      {
+         nav.parseContent(ValueType.BYTE);
+         fail();
+      }
+      catch (TypeConversionException e)
+      {
+         assertTrue(e.getCause() instanceof NumberFormatException);
+      }
+      assertEquals("h", nav.sibling());
+      assertEquals(Boolean.TRUE, nav.parseContent(ValueType.BOOLEAN));
+      assertEquals("i", nav.sibling());
+      assertEquals(Boolean.FALSE, nav.parseContent(ValueType.BOOLEAN));
+      assertEquals("a", nav.parseContent(ValueType.STRING));
+      assertEquals("a", nav.parseContent(ValueType.TRIMMED_STRING));
+   }
+
+   public void testCharSequenceValueType() throws Exception
+   {
+      char[] chars = " 12.50 |42".toCharArray();
+      assertEquals(new BigDecimal("12.50"), ValueType.BIG_DECIMAL.parse(CharBuffer.wrap(chars, 0, 7)));
+      assertEquals(12.5d, ValueType.DOUBLE.parse(CharBuffer.wrap(chars, 0, 7)));
+      assertEquals((Integer)42, ValueType.INTEGER.parse(CharBuffer.wrap(chars, 8, 2)));
+      assertEquals("42", ValueType.STRING.parse(CharBuffer.wrap(chars, 8, 2)));
+   }
+
+   public void testStreamContent() throws Exception
+   {
+      StringBuilder text = new StringBuilder();
+      for (int i = 0;i < 10000;i++)
+      {
+         text.append("abc&amp;");
+      }
+      StaxNavigatorImpl<String> nav = (StaxNavigatorImpl<String>)navigator(new Naming.Local(),
+         "<foo><bar>" + text + "</bar><mixed>a<b/></mixed><empty/><juu> 1 </juu></foo>");
+      nav.setContentOnDemand(true);
+      assertEquals("bar", nav.child());
+      StringWriter writer = new StringWriter();
+      assertEquals(40000, nav.getContent(writer));
+      assertEquals(text.toString().replace("&amp;", "&"), writer.toString());
+      try
+      {
+         nav.getContent();
+         fail();
+      }
+      catch (IllegalStateException ignore)
+      {
+      }
+      assertEquals("mixed", nav.sibling());
+      writer = new StringWriter();
+      assertEquals(-1, nav.getContent(writer));
+      assertEquals(null, nav.getContent());
+      assertEquals("b", nav.child());
+      assertEquals("empty", nav.next());
+      assertEquals(-1, nav.getContent(new StringWriter()));
+      assertEquals("juu", nav.sibling());
+      nav.setContentOnDemand(false);
+      assertEquals(" 1 ", nav.getContent());
+      writer = new StringWriter();
+      assertEquals(3, nav.getContent(writer));
+      assertEquals(" 1 ", writer.toString());
+   }
+
+   public void testContentReader() throws Exception
+   {
+      StaxNavigatorImpl<String> nav = (StaxNavigatorImpl<String>)navigator(new Naming.Local(),
+         "<foo><bar>abc&amp;def</bar><juu>ghi<!--comment-->jkl</juu><daa>mno</daa><empty/></foo>");
+      nav.setContentOnDemand(true);
+      assertEquals("bar", nav.child());
+      Reader reader = nav.getContentReader();
+      StringBuilder sb = new StringBuilder();
+      char[] buffer = new char[2];
+      for (int length = reader.read(buffer);length != -1;length = reader.read(buffer))
+      {
+         sb.append(buffer, 0, length);
+      }
+      assertEquals("abc&def", sb.toString());
+      assertEquals(-1, reader.read());
+      assertEquals("juu", nav.sibling());
+      reader = nav.getContentReader();
+      sb.setLength(0);
+      for (int c = reader.read();c != -1;c = reader.read())
+      {
+         sb.append((char)c);
+      }
+      assertEquals("ghijkl", sb.toString());
+
+      // Navigating stops the reader
+      assertEquals("daa", nav.sibling());
+      reader = nav.getContentReader();
+      assertEquals('m', reader.read());
+      assertEquals("empty", nav.sibling());
+      assertEquals(-1, reader.read());
+      assertEquals(null, nav.next());
+
+      // Buffered content
+      nav = (StaxNavigatorImpl<String>)navigator(new Naming.Local(), "<foo>abc</foo>");
+      reader = nav.getContentReader();
+      assertEquals('a', reader.read());
+   }
+
+   public void testBinaryContent() throws Exception
+   {
+      testBinaryContent(false);
+   }
+
+   public void testBinaryContentOnDemand() throws Exception
+   {
+      testBinaryContent(true);
+   }
+
+   private void testBinaryContent(boolean contentOnDemand) throws Exception
+   {
+      StaxNavigatorImpl<String> nav = (StaxNavigatorImpl<String>)navigator(new Naming.Local(),
+         "<foo>" +
+            "<a>\n  aGVsbG8g\n  d29ybGQ=\n</a>" +
+            "<b>aGk=</b>" +
+            "<c> 68 65 6C 6c 6F </c>" +
+            "<d>aGk</d>" +
+            "<e>6</e>" +
+            "<f>aGVsbG8gd29ybGQ=</f>" +
+         "</foo>");
+      nav.setContentOnDemand(contentOnDemand);
+      assertEquals("a", nav.child());
+      assertEquals("hello world", new String(nav.getBinaryContent(BinaryEncoding.BASE64), "UTF-8"));
+      assertEquals("b", nav.sibling());
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      assertEquals(2, nav.getBinaryContent(BinaryEncoding.BASE64, out));
+      assertEquals("hi", out.toString("UTF-8"));
+      assertEquals("c", nav.sibling());
+      ByteBuffer buffer = ByteBuffer.allocate(10);
+      assertEquals(5, nav.getBinaryContent(BinaryEncoding.HEX, buffer));
+      buffer.flip();
+      assertEquals(5, buffer.remaining());
+      assertEquals('h', buffer.get());
+      assertEquals("d", nav.sibling());
+      try
+      {
+         nav.getBinaryContent(BinaryEncoding.BASE64);
+         fail();
+      }
+      catch (TypeConversionException e)
+      {
+         assertNotNull(e.getLocation());
+      }
+      assertEquals("e", nav.sibling());
+      try
+      {
+         nav.getBinaryContent(BinaryEncoding.HEX);
+         fail();
+      }
+      catch (TypeConversionException ignore)
+      {
+      }
+      assertEquals("f", nav.sibling());
+      try
+      {
+         nav.getBinaryContent(BinaryEncoding.BASE64, ByteBuffer.allocate(4));
+         fail();
+      }
+      catch (BufferOverflowException ignore)
+      {
+      }
+      assertEquals(null, nav.sibling());
+   }
 }
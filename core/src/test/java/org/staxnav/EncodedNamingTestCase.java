@@ -53,6 +53,33 @@ public class EncodedNamingTestCase extends StaxNavigatorTestCase
       assertEquals("Author C", navigator.parseContent(decoderValueType));
    }
 
+   public void testCharSequenceValueType()
+   {
+      ValueType<String> decoderValueType = new ValueType<String>()
+      {
+         @Override
+         protected String parse(String s) throws Exception
+         {
+            return parse((CharSequence)s);
+         }
+
+         @Override
+         protected String parse(CharSequence s) throws Exception
+         {
+            StringBuilder decoded = new StringBuilder(s.length());
+            for (int i = s.length() - 1;i >= 0;i--)
+            {
+               decoded.append(s.charAt(i));
+            }
+            return decoded.toString();
+         }
+      };
+      assertTrue(navigator.find(EncodedElement.TITLE_ELEMENT));
+      assertEquals("Title A", navigator.parseContent(decoderValueType));
+      assertEquals(EncodedElement.AUTHOR_ELEMENT, navigator.next());
+      assertEquals("Author A", navigator.parseContent(decoderValueType));
+   }
+
    public void testForkMechanics()
    {
       assertEquals(EncodedElement.BOOKS_ELEMENT, navigator.getName());
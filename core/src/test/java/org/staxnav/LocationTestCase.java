@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import javax.xml.stream.Location;
+
+/**
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public class LocationTestCase extends AbstractXMLTestCase
+{
+
+   /** . */
+   private static final String DOCUMENT = "<foo>\n  <bar>a</bar>\n  <juu/>\n</foo>";
+
+   private StaxNavigatorImpl<String> navigator(LocationCapture locationCapture)
+   {
+      StaxNavigatorImpl<String> navigator = (StaxNavigatorImpl<String>)navigator(new Naming.Local(), DOCUMENT);
+      navigator.setLocationCapture(locationCapture);
+      return navigator;
+   }
+
+   public void testCompact() throws Exception
+   {
+      StaxNavigatorImpl<String> full = navigator(LocationCapture.FULL);
+      StaxNavigatorImpl<String> compact = navigator(LocationCapture.COMPACT);
+      assertEquals(LocationCapture.COMPACT, compact.getLocationCapture());
+      do
+      {
+         Location expected = full.getLocation();
+         Location location = compact.getLocation();
+         assertNotNull(location);
+         assertEquals(expected.getLineNumber(), location.getLineNumber());
+         assertEquals(expected.getColumnNumber(), location.getColumnNumber());
+         assertEquals(expected.getCharacterOffset(), location.getCharacterOffset());
+         assertEquals(expected.getSystemId(), location.getSystemId());
+         assertEquals(expected.getPublicId(), location.getPublicId());
+         assertEquals(full.next(), compact.next());
+      }
+      while (full.getName() != null && compact.getName() != null && !"juu".equals(full.getName()));
+   }
+
+   public void testNone() throws Exception
+   {
+      StaxNavigatorImpl<String> navigator = navigator(LocationCapture.NONE);
+      assertEquals("foo", navigator.getName());
+      assertNull(navigator.getLocation());
+      assertEquals("bar", navigator.next());
+      assertNull(navigator.getLocation());
+      try
+      {
+         navigator.parseContent(ValueType.INTEGER);
+         fail();
+      }
+      catch (TypeConversionException e)
+      {
+         assertNull(e.getLocation());
+      }
+   }
+
+   public void testTypeConversionException() throws Exception
+   {
+      StaxNavigatorImpl<String> navigator = navigator(LocationCapture.COMPACT);
+      assertEquals("bar", navigator.next());
+      try
+      {
+         navigator.parseContent(ValueType.INTEGER);
+         fail();
+      }
+      catch (TypeConversionException e)
+      {
+         assertEquals(2, e.getLocation().getLineNumber());
+      }
+   }
+}
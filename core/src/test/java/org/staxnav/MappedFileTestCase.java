@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import junit.framework.TestCase;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public class MappedFileTestCase extends TestCase
+{
+
+   /** . */
+   private static final String DOCUMENT = "<root><a>foo</a><b>bar</b><a>juu</a></root>";
+
+   /** . */
+   private File file;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      file = File.createTempFile("staxnav", ".xml");
+      OutputStream out = new FileOutputStream(file);
+      out.write(DOCUMENT.getBytes("UTF-8"));
+      out.close();
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      assertTrue(file.delete());
+   }
+
+   public void testRead() throws Exception
+   {
+      for (int segmentSize = 1;segmentSize <= DOCUMENT.length() + 1;segmentSize++)
+      {
+         MappedFile mapped = MappedFile.map(file, segmentSize);
+         assertEquals(DOCUMENT.length(), mapped.length());
+         assertEquals(DOCUMENT, read(mapped.getInputStream()));
+         assertEquals("<a>foo</a>", read(mapped.getInputStream(6, 16)));
+         assertEquals("", read(mapped.getInputStream(6, 6)));
+         InputStream in = mapped.getInputStream(1, 5);
+         assertEquals('r', in.read());
+         assertEquals(2, in.skip(2));
+         assertEquals('t', in.read());
+         assertEquals(-1, in.read());
+      }
+   }
+
+   public void testInvalidRange() throws Exception
+   {
+      MappedFile mapped = MappedFile.map(file);
+      assertInvalidRange(mapped, -1, 1);
+      assertInvalidRange(mapped, 0, DOCUMENT.length() + 1);
+      assertInvalidRange(mapped, 2, 1);
+   }
+
+   public void testIndexOf() throws Exception
+   {
+      for (int segmentSize = 1;segmentSize <= DOCUMENT.length() + 1;segmentSize++)
+      {
+         MappedFile mapped = MappedFile.map(file, segmentSize);
+         for (int from = 0;from <= DOCUMENT.length();from++)
+         {
+            assertEquals(DOCUMENT.indexOf('<', from), mapped.indexOf((byte)'<', from));
+            assertEquals(DOCUMENT.indexOf('j', from), mapped.indexOf((byte)'j', from));
+         }
+         assertEquals(-1, mapped.indexOf((byte)'z', 0));
+      }
+   }
+
+   public void testNavigator() throws Exception
+   {
+      MappedFile mapped = MappedFile.map(file, 5);
+      StaxNavigator<String> navigator = mapped.navigator(new Naming.Local(), XMLInputFactory.newInstance());
+      assertEquals("root", navigator.getName());
+      assertEquals("a", navigator.child());
+      assertEquals("foo", navigator.getContent());
+      assertEquals("b", navigator.sibling());
+      assertEquals("bar", navigator.getContent());
+      assertEquals("a", navigator.sibling());
+      assertEquals("juu", navigator.getContent());
+      assertEquals(null, navigator.sibling());
+   }
+
+   public void testEmpty() throws Exception
+   {
+      OutputStream out = new FileOutputStream(file);
+      out.close();
+      MappedFile mapped = MappedFile.map(file);
+      assertEquals(0, mapped.length());
+      assertEquals(-1, mapped.getInputStream().read());
+      assertEquals(-1, mapped.indexOf((byte)'<', 0));
+   }
+
+   private static void assertInvalidRange(MappedFile mapped, long start, long end)
+   {
+      try
+      {
+         mapped.getInputStream(start, end);
+         fail();
+      }
+      catch (IndexOutOfBoundsException ignore)
+      {
+      }
+   }
+
+   private static String read(InputStream in) throws IOException
+   {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[3];
+      for (int n = in.read(buffer);n != -1;n = in.read(buffer))
+      {
+         out.write(buffer, 0, n);
+      }
+      return out.toString("UTF-8");
+   }
+}
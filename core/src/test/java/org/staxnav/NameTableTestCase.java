@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import junit.framework.TestCase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public class NameTableTestCase extends TestCase
+{
+
+   public void testLookup()
+   {
+      Map<String, Integer> entries = new LinkedHashMap<String, Integer>();
+      for (int i = 0;i < 200;i++)
+      {
+         entries.put("element-" + i, i);
+      }
+      NameTable<Integer> table = new NameTable<Integer>(entries);
+      for (int i = 0;i < 200;i++)
+      {
+         String name = "element-" + i;
+         assertEquals((Integer)i, table.get(name));
+         char[] chars = ("<" + name + ">").toCharArray();
+         assertEquals((Integer)i, table.get(chars, 1, name.length()));
+      }
+      assertNull(table.get("element-200"));
+      assertNull(table.get("element-200".toCharArray(), 0, 11));
+      assertNull(table.get(""));
+   }
+
+   public void testEmpty()
+   {
+      NameTable<Integer> table = new NameTable<Integer>(new LinkedHashMap<String, Integer>());
+      assertNull(table.get("foo"));
+      assertNull(table.get(new char[0], 0, 0));
+   }
+
+   public void testSameHashCode()
+   {
+      // "Aa" and "BB" have the same hash code
+      Map<String, Integer> entries = new LinkedHashMap<String, Integer>();
+      entries.put("Aa", 1);
+      entries.put("BB", 2);
+      entries.put("foo", 3);
+      NameTable<Integer> table = new NameTable<Integer>(entries);
+      assertEquals((Integer)1, table.get("Aa"));
+      assertEquals((Integer)2, table.get("BB"));
+      assertEquals((Integer)3, table.get("foo"));
+      assertEquals((Integer)1, table.get("Aa".toCharArray(), 0, 2));
+      assertEquals((Integer)2, table.get("BB".toCharArray(), 0, 2));
+      assertNull(table.get("C#"));
+   }
+}
@@ -116,4 +116,43 @@ public class NamespaceTestCase extends StaxNavigatorTestCase
       assertEquals(1, navigator.getQualifiedAttributes().size());
       assertEquals("juu_value", navigator.getQualifiedAttributes().get(new QName("", "juu")));
    }
+
+   public void testH() throws Exception
+   {
+      StaxNavigator<String> navigator = navigator(new Naming.Local(), "namespace3.xml");
+      assertEquals(true, navigator.next("bar"));
+
+      assertSame(navigator.getQualifiedAttributes(), navigator.getQualifiedAttributes());
+      assertEquals(2, navigator.getQualifiedAttributes().size());
+      assertEquals(1, navigator.getAttributes().size());
+      try
+      {
+         navigator.getQualifiedAttributes().clear();
+         fail();
+      }
+      catch (UnsupportedOperationException ignore)
+      {
+      }
+      assertEquals("ns_juu_value", navigator.getAttribute(new QName("http://www.w3.org/2000/svg", "juu")));
+      assertEquals(null, navigator.getAttribute(new QName("http://www.w3.org/2000/svg", "foo")));
+   }
+
+   public void testI() throws Exception
+   {
+      StaxNavigator<String> navigator = navigator(new Naming.Local(), "namespace4.xml");
+      assertEquals("foo", navigator.getName());
+      assertEquals("http://www.w3.org/TR/html4/", navigator.getNamespaceByPrefix("ns"));
+      assertEquals(null, navigator.getNamespaceByPrefix("other"));
+      for (int i = 0;i < 2;i++)
+      {
+         assertEquals("bar", navigator.next());
+         assertEquals("http://www.w3.org/2000/svg", navigator.getNamespaceByPrefix("ns"));
+         assertEquals("http://www.w3.org/1999/xhtml", navigator.getNamespaceByPrefix("other"));
+         assertEquals("juu", navigator.next());
+         assertEquals("http://www.w3.org/2000/svg", navigator.getNamespaceByPrefix("ns"));
+      }
+      assertEquals("bar", navigator.next());
+      assertEquals("http://www.w3.org/TR/html4/", navigator.getNamespaceByPrefix("ns"));
+      assertEquals("http://www.w3.org/1999/xhtml", navigator.getNamespaceByPrefix("other"));
+   }
 }
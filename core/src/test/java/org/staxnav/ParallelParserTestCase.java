@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import junit.framework.TestCase;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public class ParallelParserTestCase extends TestCase
+{
+
+   /** . */
+   private ExecutorService executor;
+
+   @Override
+   protected void setUp() throws Exception
+   {
+      executor = Executors.newFixedThreadPool(4);
+   }
+
+   @Override
+   protected void tearDown() throws Exception
+   {
+      executor.shutdown();
+   }
+
+   private static byte[] document(int records) throws Exception
+   {
+      StringBuilder sb = new StringBuilder();
+      sb.append("<?xml version='1.0' encoding='UTF-8'?>\n");
+      sb.append("<!DOCTYPE root [<!ENTITY e 'entity'> <!-- <record> -->]>\n");
+      sb.append("<!-- <root> -->\n");
+      sb.append("<root xmlns:ns='urn:ns' a='>'>\n");
+      for (int i = 0;i < records;i++)
+      {
+         switch (i % 4)
+         {
+            case 0:
+               sb.append("<record id='").append(i).append("'><ns:value>&e;</ns:value></record>\n");
+               break;
+            case 1:
+               sb.append("<record id='").append(i).append("' b=\"/record>\"><![CDATA[</record><record>]]></record>\n");
+               break;
+            case 2:
+               sb.append("<?pi </record> ?><record id='").append(i).append("'/><!-- </root> -->\n");
+               break;
+            default:
+               sb.append("<record id='").append(i).append("'><record><record/></record></record>\n");
+               break;
+         }
+      }
+      sb.append("</root>\n");
+      return sb.toString().getBytes("UTF-8");
+   }
+
+   private static class Collector implements Parser<String>
+   {
+
+      /** . */
+      private final List<Integer> ids = Collections.synchronizedList(new ArrayList<Integer>());
+
+      public void parse(StaxNavigator<String> navigator) throws StaxNavException
+      {
+         assertEquals("record", navigator.getName());
+         int id = Integer.parseInt(navigator.getAttribute("id"));
+         switch (id % 4)
+         {
+            case 0:
+               assertEquals("value", navigator.child());
+               assertEquals("entity", navigator.getContent());
+               assertEquals("urn:ns", navigator.getNamespaceByPrefix("ns"));
+               break;
+            case 1:
+               assertEquals("/record>", navigator.getAttribute("b"));
+               break;
+            case 2:
+               assertNull(navigator.child());
+               break;
+            default:
+               assertEquals(1, navigator.descendant("record"));
+               assertEquals(1, navigator.descendant("record"));
+               break;
+         }
+         ids.add(id);
+      }
+
+      private void assertIds(int records)
+      {
+         List<Integer> sorted = new ArrayList<Integer>(ids);
+         Collections.sort(sorted);
+         assertEquals(records, sorted.size());
+         for (int i = 0;i < records;i++)
+         {
+            assertEquals(i, (int)sorted.get(i));
+         }
+      }
+   }
+
+   private ParallelParser<String> parser(int chunkSize)
+   {
+      ParallelParser<String> parser = new ParallelParser<String>(new Naming.Local(), XMLInputFactory.newInstance(), executor);
+      parser.setChunkSize(chunkSize);
+      return parser;
+   }
+
+   public void testBytes() throws Exception
+   {
+      for (int chunkSize : new int[]{1, 100, 1000, 1000000})
+      {
+         Collector collector = new Collector();
+         assertEquals(100, parser(chunkSize).parse(document(100), collector));
+         collector.assertIds(100);
+      }
+   }
+
+   public void testFile() throws Exception
+   {
+      File file = File.createTempFile("staxnav", ".xml");
+      try
+      {
+         OutputStream out = new FileOutputStream(file);
+         out.write(document(1000));
+         out.close();
+         Collector collector = new Collector();
+         assertEquals(1000, parser(1000).parse(file, collector));
+         collector.assertIds(1000);
+      }
+      finally
+      {
+         assertTrue(file.delete());
+      }
+   }
+
+   public void testNoRecords() throws Exception
+   {
+      Collector collector = new Collector();
+      assertEquals(0, parser(100).parse("<root/>".getBytes("UTF-8"), collector));
+      assertEquals(0, parser(100).parse("<root> </root>".getBytes("UTF-8"), collector));
+      collector.assertIds(0);
+   }
+
+   public void testIncrementalScan() throws Exception
+   {
+      byte[] document = document(20);
+      RecordScanner expected = new RecordScanner();
+      expected.scan(ByteBuffer.wrap(document), 0, document.length, 0);
+      RecordScanner scanner = new RecordScanner();
+      for (int i = 0;i < document.length;i++)
+      {
+         scanner.scan(ByteBuffer.wrap(document), i, 1, i);
+      }
+      assertTrue(scanner.isDone());
+      assertEquals(40, scanner.size);
+      for (int i = 0;i < scanner.size;i++)
+      {
+         assertEquals(expected.boundaries[i], scanner.boundaries[i]);
+      }
+      assertEquals(new String(expected.getProlog(), "UTF-8"), new String(scanner.getProlog(), "UTF-8"));
+      assertTrue(new String(scanner.getProlog(), "UTF-8").endsWith("<root xmlns:ns='urn:ns' a='>'>"));
+      assertEquals("root", scanner.getRootName());
+   }
+
+   public void testHandlerFailure() throws Exception
+   {
+      final RuntimeException failure = new RuntimeException();
+      try
+      {
+         parser(100).parse(document(100), new Parser<String>()
+         {
+            public void parse(StaxNavigator<String> navigator) throws StaxNavException
+            {
+               if (navigator.getAttribute("id").equals("50"))
+               {
+                  throw failure;
+               }
+            }
+         });
+         fail();
+      }
+      catch (RuntimeException e)
+      {
+         assertSame(failure, e);
+      }
+   }
+
+   public void testTruncated() throws Exception
+   {
+      byte[] document = document(10);
+      byte[] truncated = new byte[document.length - 10];
+      System.arraycopy(document, 0, truncated, 0, truncated.length);
+      try
+      {
+         parser(100).parse(truncated, new Collector());
+         fail();
+      }
+      catch (StaxNavException ignore)
+      {
+      }
+   }
+
+   public void testQualifiedRecords() throws Exception
+   {
+      byte[] document = "<a:root xmlns:a='urn:a'><a:record>1</a:record><a:record>2</a:record></a:root>".getBytes("UTF-8");
+      final List<QName> names = Collections.synchronizedList(new ArrayList<QName>());
+      ParallelParser<QName> parser = new ParallelParser<QName>(new Naming.Qualified(), XMLInputFactory.newInstance(), executor);
+      parser.setChunkSize(1);
+      assertEquals(2, parser.parse(document, new Parser<QName>()
+      {
+         public void parse(StaxNavigator<QName> navigator) throws StaxNavException
+         {
+            names.add(navigator.getName());
+         }
+      }));
+      assertEquals(2, names.size());
+      assertEquals(new QName("urn:a", "record"), names.get(0));
+   }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public class PathQueryTestCase extends AbstractXMLTestCase
+{
+
+   /** . */
+   private static final String DOCUMENT =
+      "<portlet>" +
+         "<name>foo</name>" +
+         "<preferences>" +
+            "<preference readonly='true'><name>a</name><value>1</value><value>2</value></preference>" +
+            "<preference><name>b</name><value>3</value></preference>" +
+            "<preference readonly='false'><name>c</name><value>4</value></preference>" +
+         "</preferences>" +
+      "</portlet>";
+
+   private List<String> select(String expression)
+   {
+      return select(navigator(new Naming.Local(), DOCUMENT), expression);
+   }
+
+   private List<String> select(StaxNavigator<String> navigator, String expression)
+   {
+      List<String> contents = new ArrayList<String>();
+      for (StaxNavigator<String> match : PathQuery.compile(expression).select(navigator))
+      {
+         contents.add(match.getName() + "=" + match.getContent());
+      }
+      return contents;
+   }
+
+   private void assertSelect(String expression, String... expected)
+   {
+      List<String> contents = select(expression);
+      assertEquals(expression, Arrays.asList(expected), contents);
+   }
+
+   public void testChild()
+   {
+      assertSelect("/portlet/name", "name=foo");
+      assertSelect("/portlet/preferences/preference/value", "value=1", "value=2", "value=3", "value=4");
+      assertSelect("/preferences");
+      assertSelect("/portlet/value");
+   }
+
+   public void testDescendant()
+   {
+      assertSelect("//value", "value=1", "value=2", "value=3", "value=4");
+      assertSelect("//name", "name=foo", "name=a", "name=b", "name=c");
+      assertSelect("/portlet//preference/name", "name=a", "name=b", "name=c");
+      assertSelect("//preferences//name", "name=a", "name=b", "name=c");
+   }
+
+   public void testWildcard()
+   {
+      assertSelect("/*/name", "name=foo");
+      assertSelect("/portlet/*/*/value", "value=1", "value=2", "value=3", "value=4");
+   }
+
+   public void testAttribute()
+   {
+      assertSelect("/portlet/preferences/preference[@readonly]/value", "value=1", "value=2", "value=4");
+      assertSelect("/portlet/preferences/preference[@readonly='true']/value", "value=1", "value=2");
+      assertSelect("//preference[@readonly=\"false\"]/name", "name=c");
+      assertSelect("//preference[@missing]/name");
+   }
+
+   public void testPosition()
+   {
+      assertSelect("//preference[2]/name", "name=b");
+      assertSelect("//value[1]", "value=1", "value=3", "value=4");
+      assertSelect("//value[2]", "value=2");
+      assertSelect("//preference[@readonly][2]/name", "name=c");
+      assertSelect("//preference[2][@readonly]/name");
+      assertSelect("/portlet[1]/name", "name=foo");
+   }
+
+   public void testNested()
+   {
+      StaxNavigator<String> navigator = navigator(new Naming.Local(), "<a><a><b>1</b></a><b>2</b></a>");
+      assertEquals(Arrays.asList("a=null", "a=null"), select(navigator, "//a"));
+      navigator = navigator(new Naming.Local(), "<a><a><b>1</b></a><b>2</b></a>");
+      assertEquals(Arrays.asList("b=1", "b=2"), select(navigator, "//a/b"));
+   }
+
+   public void testRelative()
+   {
+      StaxNavigator<String> navigator = navigator(new Naming.Local(), DOCUMENT);
+      assertTrue(navigator.find("preferences"));
+      assertEquals(Arrays.asList("name=a", "name=b", "name=c"), select(navigator, "preference/name"));
+   }
+
+   public void testScopedToSubtree()
+   {
+      StaxNavigator<String> navigator = navigator(new Naming.Local(), DOCUMENT);
+      assertTrue(navigator.find("preference"));
+      assertEquals(Arrays.asList("value=1", "value=2"), select(navigator, "//value"));
+      assertEquals("preference", navigator.getName());
+      assertEquals("b", navigator.child() != null ? navigator.getContent() : null);
+   }
+
+   public void testLazy()
+   {
+      StaxNavigator<String> navigator = navigator(new Naming.Local(), DOCUMENT);
+      Iterator<StaxNavigator<String>> matches = PathQuery.compile("//value").select(navigator).iterator();
+      assertEquals("portlet", navigator.getName());
+      assertTrue(matches.hasNext());
+      assertEquals("value", navigator.getName());
+      assertEquals("1", matches.next().getContent());
+      assertEquals("2", matches.next().getContent());
+      assertTrue(matches.hasNext());
+      assertEquals("3", navigator.getContent());
+   }
+
+   public void testIterateOnce()
+   {
+      Iterable<StaxNavigator<String>> matches = PathQuery.compile("//value").select(navigator(new Naming.Local(), DOCUMENT));
+      matches.iterator();
+      try
+      {
+         matches.iterator();
+         fail();
+      }
+      catch (IllegalStateException ignore)
+      {
+      }
+   }
+
+   public void testInvalid()
+   {
+      String[] expressions = {"", "/", "a//", "a[", "a[@]", "a[0]", "a[b]", "a[@b=c]", "a[@b='c]", "a b", "1a"};
+      for (String expression : expressions)
+      {
+         try
+         {
+            PathQuery.compile(expression);
+            fail("Was expecting " + expression + " to fail");
+         }
+         catch (IllegalArgumentException ignore)
+         {
+         }
+      }
+      try
+      {
+         PathQuery.compile(null);
+         fail();
+      }
+      catch (NullPointerException ignore)
+      {
+      }
+   }
+
+   public void testToString()
+   {
+      assertEquals("//preference[@readonly]/value", PathQuery.compile("//preference[@readonly]/value").toString());
+   }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public class PathRouterTestCase extends AbstractXMLTestCase
+{
+
+   /** . */
+   private static final String DOCUMENT =
+      "<portlet>" +
+         "<name>foo</name>" +
+         "<preferences>" +
+            "<preference readonly='true'><name>a</name><value>1</value><value>2</value></preference>" +
+            "<preference><name>b</name><value>3</value></preference>" +
+         "</preferences>" +
+      "</portlet>";
+
+   private static class Collector implements Parser<String>
+   {
+
+      /** . */
+      private final String id;
+
+      /** . */
+      private final List<String> events;
+
+      private Collector(String id, List<String> events)
+      {
+         this.id = id;
+         this.events = events;
+      }
+
+      public void parse(StaxNavigator<String> navigator) throws StaxNavException
+      {
+         events.add(id + ":" + navigator.getName() + "=" + navigator.getContent());
+      }
+   }
+
+   public void testDispatch()
+   {
+      List<String> events = new ArrayList<String>();
+      PathRouter<String> router = new PathRouter<String>();
+      router.register("/portlet/name", new Collector("portlet", events));
+      router.register("/portlet/preferences/preference/name", new Collector("preference", events));
+      router.register("//value", new Collector("value", events));
+      router.register("/portlet/missing", new Collector("missing", events));
+      assertEquals(6, router.route(navigator(new Naming.Local(), DOCUMENT)));
+      assertEquals(Arrays.asList(
+         "portlet:name=foo",
+         "preference:name=a",
+         "value:value=1",
+         "value:value=2",
+         "preference:name=b",
+         "value:value=3"), events);
+   }
+
+   public void testSamePath()
+   {
+      List<String> events = new ArrayList<String>();
+      PathRouter<String> router = new PathRouter<String>();
+      router.register("//preference/value", new Collector("2", events));
+      router.register("//value[1]", new Collector("1", events));
+      router.register("//preference/value", new Collector("3", events));
+      assertEquals(8, router.route(navigator(new Naming.Local(), DOCUMENT)));
+      assertEquals(Arrays.asList(
+         "2:value=1",
+         "3:value=1",
+         "1:value=1",
+         "2:value=2",
+         "3:value=2",
+         "2:value=3",
+         "3:value=3",
+         "1:value=3"), events);
+   }
+
+   public void testPredicates()
+   {
+      List<String> events = new ArrayList<String>();
+      PathRouter<String> router = new PathRouter<String>();
+      router.register("//preference[@readonly]/value[2]", new Collector("readonly", events));
+      router.register("//preference[2]/*[1]", new Collector("second", events));
+      router.register("//preference[@readonly='false']", new Collector("none", events));
+      assertEquals(2, router.route(navigator(new Naming.Local(), DOCUMENT)));
+      assertEquals(Arrays.asList("readonly:value=2", "second:name=b"), events);
+   }
+
+   public void testNested()
+   {
+      List<String> events = new ArrayList<String>();
+      PathRouter<String> router = new PathRouter<String>();
+      router.register("//a//b", new Collector("b", events));
+      router.register("//a", new Collector("a", events));
+      assertEquals(4, router.route(navigator(new Naming.Local(), "<a><a><b>1</b></a><b>2</b></a>")));
+      assertEquals(Arrays.asList("a:a=null", "a:a=null", "b:b=1", "b:b=2"), events);
+   }
+
+   public void testRelative()
+   {
+      List<String> events = new ArrayList<String>();
+      PathRouter<String> router = new PathRouter<String>();
+      router.register("preference/name", new Collector("relative", events));
+      router.register("/preferences", new Collector("absolute", events));
+      StaxNavigator<String> navigator = navigator(new Naming.Local(), DOCUMENT);
+      assertTrue(navigator.find("preferences"));
+      assertEquals(3, router.route(navigator));
+      assertEquals(Arrays.asList("absolute:preferences=null", "relative:name=a", "relative:name=b"), events);
+   }
+
+   public void testHandlerNavigation()
+   {
+      final List<String> events = new ArrayList<String>();
+      PathRouter<String> router = new PathRouter<String>();
+      router.register("//preference", new Parser<String>()
+      {
+         public void parse(StaxNavigator<String> navigator) throws StaxNavException
+         {
+            while (navigator.next() != null)
+            {
+               if (navigator.getName().equals("value"))
+               {
+                  events.add("preference:" + navigator.getContent());
+               }
+            }
+         }
+      });
+      router.register("//value", new Collector("value", events));
+      assertEquals(5, router.route(navigator(new Naming.Local(), DOCUMENT)));
+      assertEquals(Arrays.asList(
+         "preference:1",
+         "preference:2",
+         "value:value=1",
+         "value:value=2",
+         "preference:3",
+         "value:value=3"), events);
+   }
+
+   public void testReuse()
+   {
+      List<String> events = new ArrayList<String>();
+      PathRouter<String> router = new PathRouter<String>();
+      router.register("//name", new Collector("name", events));
+      assertEquals(3, router.route(navigator(new Naming.Local(), DOCUMENT)));
+      assertEquals(3, router.route(navigator(new Naming.Local(), DOCUMENT)));
+      assertEquals(6, events.size());
+   }
+
+   public void testRegister()
+   {
+      PathRouter<String> router = new PathRouter<String>();
+      try
+      {
+         router.register(null, new Collector("", new ArrayList<String>()));
+         fail();
+      }
+      catch (NullPointerException ignore)
+      {
+      }
+      try
+      {
+         router.register("/a", null);
+         fail();
+      }
+      catch (NullPointerException ignore)
+      {
+      }
+      try
+      {
+         router.register("/a[", new Collector("", new ArrayList<String>()));
+         fail();
+      }
+      catch (IllegalArgumentException ignore)
+      {
+      }
+   }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public class PipelineTestCase extends AbstractXMLTestCase
+{
+
+   /** . */
+   private static final String DOCUMENT =
+      "<foo a='0'>" +
+         "<bar><juu>1</juu><daa><juu>2</juu></daa></bar>" +
+         "<bar><juu>3</juu></bar>" +
+         "<daa>4</daa>" +
+      "</foo>";
+
+   private StaxNavigatorImpl<String> pipeline(String document, int capacity) throws Exception
+   {
+      XMLStreamReader stream = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(document));
+      return StaxNavigatorImpl.pipeline(new Naming.Local(), stream, capacity);
+   }
+
+   public void testNext() throws Exception
+   {
+      List<String> expected = visit(navigator(new Naming.Local(), DOCUMENT));
+      assertEquals(8, expected.size());
+      for (int capacity = 1;capacity <= 8;capacity++)
+      {
+         assertEquals(expected, visit(pipeline(DOCUMENT, capacity)));
+      }
+   }
+
+   public void testNavigate() throws Exception
+   {
+      for (int capacity = 1;capacity <= 8;capacity++)
+      {
+         StaxNavigatorImpl<String> navigator = pipeline(DOCUMENT, capacity);
+         assertEquals("foo", navigator.getName());
+         assertEquals("0", navigator.getAttribute("a"));
+         assertEquals("bar", navigator.child());
+         StaxNavigator<String> fork = navigator.fork();
+         assertTrue(navigator.sibling("daa"));
+         assertEquals("4", navigator.getContent());
+         assertNull(navigator.next());
+         assertEquals("juu", fork.child());
+         assertEquals("1", fork.getContent());
+      }
+   }
+
+   public void testSubtreeSkipping() throws Exception
+   {
+      for (int capacity = 1;capacity <= 8;capacity++)
+      {
+         StaxNavigatorImpl<String> navigator = pipeline(DOCUMENT, capacity);
+         navigator.setSubtreeSkipping(true);
+         assertEquals("bar", navigator.child());
+         assertEquals("juu", navigator.child());
+         assertFalse(navigator.sibling("bar"));
+         assertEquals("daa", navigator.next());
+         assertEquals("bar", navigator.next());
+         assertEquals("juu", navigator.next());
+         assertEquals("3", navigator.getContent());
+      }
+   }
+
+   public void testFailure() throws Exception
+   {
+      for (int capacity = 1;capacity <= 4;capacity++)
+      {
+         StaxNavigatorImpl<String> navigator = pipeline("<foo><bar>1</bar><bar>2</bar><juu></foo>", capacity);
+         assertEquals("bar", navigator.child());
+         assertEquals("1", navigator.getContent());
+         assertEquals("bar", navigator.sibling());
+         assertEquals("2", navigator.getContent());
+         for (int i = 0;i < 2;i++)
+         {
+            try
+            {
+               navigator.next();
+               fail();
+            }
+            catch (StaxNavException ignore)
+            {
+            }
+         }
+         assertEquals("bar", navigator.getName());
+      }
+   }
+
+   public void testConfiguration() throws Exception
+   {
+      StaxNavigatorImpl<String> navigator = pipeline(DOCUMENT, 4);
+      try
+      {
+         navigator.setContentOnDemand(true);
+         fail();
+      }
+      catch (IllegalStateException ignore)
+      {
+      }
+      try
+      {
+         navigator.setLocationCapture(LocationCapture.NONE);
+         fail();
+      }
+      catch (IllegalStateException ignore)
+      {
+      }
+   }
+
+   public void testCloseWhileReading() throws Exception
+   {
+      StringBuilder document = new StringBuilder("<foo>");
+      for (int i = 0;i < 1000;i++)
+      {
+         document.append("<bar>").append(i).append("</bar>");
+      }
+      document.append("</foo>");
+      ClosingStream stream = new ClosingStream(document.toString());
+      Producer producer = new Producer();
+      StaxNavigatorImpl<String> navigator = StaxNavigatorImpl.pipeline(new Naming.Local(), stream, 2, producer);
+      assertEquals("bar", navigator.child());
+      navigator.close();
+      navigator.close();
+      producer.thread.join(10000);
+      assertFalse(producer.thread.isAlive());
+      assertSame(producer.thread, stream.closer);
+      try
+      {
+         navigator.next();
+         fail();
+      }
+      catch (IllegalStateException ignore)
+      {
+      }
+   }
+
+   public void testCloseAfterReading() throws Exception
+   {
+      ClosingStream stream = new ClosingStream(DOCUMENT);
+      Producer producer = new Producer();
+      StaxNavigatorImpl<String> navigator = StaxNavigatorImpl.pipeline(new Naming.Local(), stream, 16, producer);
+      producer.thread.join(10000);
+      assertFalse(producer.thread.isAlive());
+      assertNull(stream.closer);
+      navigator.close();
+      assertSame(Thread.currentThread(), stream.closer);
+   }
+
+   public void testInvalidCapacity() throws Exception
+   {
+      try
+      {
+         pipeline(DOCUMENT, 0);
+         fail();
+      }
+      catch (IllegalArgumentException ignore)
+      {
+      }
+   }
+
+   private static class ClosingStream extends StreamReaderDelegate
+   {
+
+      /** The thread that closed the stream. */
+      private volatile Thread closer;
+
+      private ClosingStream(String document) throws XMLStreamException
+      {
+         super(XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(document)));
+      }
+
+      @Override
+      public void close() throws XMLStreamException
+      {
+         closer = Thread.currentThread();
+         super.close();
+      }
+   }
+
+   private static class Producer implements Executor
+   {
+
+      /** . */
+      private Thread thread;
+
+      public void execute(Runnable command)
+      {
+         thread = new Thread(command);
+         thread.start();
+      }
+   }
+
+   private List<String> visit(StaxNavigator<String> navigator)
+   {
+      List<String> visited = new ArrayList<String>();
+      for (String name = navigator.getName();name != null;name = navigator.next())
+      {
+         visited.add(name + navigator.getDepth() + navigator.getContent() + navigator.getLocation().getCharacterOffset());
+      }
+      return visited;
+   }
+}
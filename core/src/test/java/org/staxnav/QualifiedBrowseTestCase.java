@@ -37,4 +37,17 @@ public class QualifiedBrowseTestCase extends AbstractBrowseTestCase<QName>
    {
       return new QName(localPart);
    }
+
+   public void testPooledName() throws Exception
+   {
+      StaxNavigator<QName> nav = navigator("<foo xmlns:a='urn:a'><a:bar/><a:bar/><bar/></foo>");
+      QName bar1 = nav.next();
+      QName bar2 = nav.next();
+      assertEquals(new QName("urn:a", "bar", "a"), bar1);
+      assertEquals("a", bar1.getPrefix());
+      assertSame(bar1, bar2);
+      QName bar3 = nav.next();
+      assertEquals(new QName("bar"), bar3);
+      assertNotSame(bar1, bar3);
+   }
 }
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import junit.framework.TestCase;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public class StaxCursorTestCase extends AbstractXMLTestCase
+{
+
+   /** . */
+   private static final String DOCUMENT =
+      "<foo a='0' xmlns:ns='urn:ns'>" +
+         "<bar ns:b='1'><juu> 1 </juu><daa><juu>2</juu></daa></bar>" +
+         "<!-- comment --><bar>text<juu>3</juu></bar>" +
+         "<daa>4</daa>" +
+      "</foo>";
+
+   private StaxCursorImpl<String> cursor(String document) throws Exception
+   {
+      return new StaxCursorImpl<String>(new Naming.Local(), XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(document)));
+   }
+
+   public void testNext() throws Exception
+   {
+      List<String> expected = new ArrayList<String>();
+      StaxNavigator<String> navigator = navigator(new Naming.Local(), DOCUMENT);
+      for (String name = navigator.getName();name != null;name = navigator.next())
+      {
+         expected.add(name + navigator.getDepth() + navigator.getContent());
+      }
+      List<String> visited = new ArrayList<String>();
+      StaxCursor<String> cursor = cursor(DOCUMENT);
+      for (String name = cursor.getName();name != null;name = cursor.next())
+      {
+         visited.add(name + cursor.getDepth() + cursor.getContent());
+      }
+      assertEquals(expected, visited);
+      assertEquals("daa", cursor.getName());
+      assertNull(cursor.next());
+   }
+
+   public void testChildAndSibling() throws Exception
+   {
+      StaxCursor<String> cursor = cursor(DOCUMENT);
+      assertEquals("foo", cursor.getName());
+      assertEquals(1, cursor.getDepth());
+      assertEquals("0", cursor.getAttribute("a"));
+      assertEquals("bar", cursor.child());
+      assertEquals("1", cursor.getAttribute(new QName("urn:ns", "b")));
+      assertNull(cursor.getAttribute("a"));
+      assertTrue(cursor.child("daa"));
+      assertEquals(3, cursor.getDepth());
+      assertEquals("juu", cursor.child());
+      assertEquals("2", cursor.getContent());
+      assertNull(cursor.sibling());
+      assertEquals("juu", cursor.getName());
+      assertEquals("bar", cursor.next());
+      assertEquals(2, cursor.getDepth());
+      assertNull(cursor.getContent());
+      assertTrue(cursor.sibling("daa"));
+      assertEquals(4, cursor.getIntContent());
+      assertNull(cursor.sibling());
+      assertNull(cursor.child());
+      assertNull(cursor.next());
+   }
+
+   public void testFailedNavigation() throws Exception
+   {
+      StaxCursor<String> cursor = cursor(DOCUMENT);
+      assertEquals("bar", cursor.child());
+      assertFalse(cursor.child("bar"));
+      assertEquals("bar", cursor.getName());
+
+      // The children were consumed
+      assertNull(cursor.child());
+      assertEquals("bar", cursor.sibling());
+      assertEquals("juu", cursor.child());
+      assertFalse(cursor.sibling("juu"));
+      assertEquals("3", cursor.getContent());
+      assertEquals("daa", cursor.next());
+   }
+
+   public void testNextName() throws Exception
+   {
+      StaxCursor<String> cursor = cursor(DOCUMENT);
+      assertFalse(cursor.next("juu"));
+      assertEquals("foo", cursor.getName());
+      assertTrue(cursor.next("bar"));
+      assertNull(cursor.next(new HashSet<String>(Arrays.asList("foo", "daa"))));
+      assertEquals("juu", cursor.next(new HashSet<String>(Arrays.asList("juu"))));
+      assertEquals("daa", cursor.next());
+   }
+
+   public void testFollowing() throws Exception
+   {
+      StaxCursor<String> cursor = cursor(DOCUMENT);
+      assertTrue(cursor.find("foo"));
+      assertTrue(cursor.find("daa"));
+      assertEquals(3, cursor.getDepth());
+      assertTrue(cursor.navigate(Axis.FOLLOWING, "daa"));
+      assertEquals(2, cursor.getDepth());
+      assertFalse(cursor.find("bar"));
+      assertEquals("daa", cursor.getName());
+   }
+
+   public void testDescendant() throws Exception
+   {
+      StaxCursor<String> cursor = cursor(DOCUMENT);
+      assertEquals("bar", cursor.child());
+      assertEquals(-1, cursor.descendant("foo"));
+      assertEquals("bar", cursor.getName());
+      assertEquals("bar", cursor.sibling());
+      assertEquals(1, cursor.descendant("juu"));
+      assertEquals(-1, cursor.descendant("juu"));
+      cursor = cursor(DOCUMENT);
+      assertEquals(2, cursor.descendant("juu"));
+      assertEquals(-1, cursor.descendant("daa"));
+      assertTrue(cursor.sibling("daa"));
+      assertEquals(1, cursor.descendant("juu"));
+      assertEquals("2", cursor.getContent());
+   }
+
+   public void testDescendantScope() throws Exception
+   {
+      String document = "<c><c id='1'><c/></c><c><b/></c></c>";
+
+      // The navigator also searches the elements following the current element
+      StaxNavigator<String> navigator = navigator(new Naming.Local(), document);
+      assertEquals("c", navigator.child());
+      assertEquals("1", navigator.getAttribute("id"));
+      assertEquals(1, navigator.descendant("b"));
+      assertEquals("b", navigator.getName());
+
+      // The cursor only searches the subtree of the current element
+      StaxCursor<String> cursor = cursor(document);
+      assertEquals("c", cursor.child());
+      assertEquals("1", cursor.getAttribute("id"));
+      assertEquals(-1, cursor.descendant("b"));
+      assertEquals("1", cursor.getAttribute("id"));
+      assertEquals("c", cursor.sibling());
+      assertEquals(1, cursor.descendant("b"));
+      assertEquals("b", cursor.getName());
+   }
+
+   public void testContent() throws Exception
+   {
+      StaxCursor<String> cursor = cursor("<foo><a> 1 </a><b>a<![CDATA[b]]>c</b><c>true</c><d>x</d><e/></foo>");
+      assertEquals("a", cursor.child());
+      assertEquals(" 1 ", cursor.getContent());
+      cursor.setTrimContent(true);
+      assertEquals("1", cursor.getContent());
+      assertEquals(1, cursor.getIntContent());
+      assertEquals(1L, cursor.getLongContent());
+      assertEquals(1.0D, cursor.getDoubleContent());
+      assertEquals(Integer.valueOf(1), cursor.parseContent(ValueType.INTEGER));
+      assertEquals("b", cursor.sibling());
+      assertEquals(navigator(new Naming.Local(), "<b>a<![CDATA[b]]>c</b>").getContent(), cursor.getContent());
+      assertEquals("c", cursor.sibling());
+      assertTrue(cursor.getBooleanContent());
+      assertEquals("d", cursor.sibling());
+      try
+      {
+         cursor.getIntContent();
+         fail();
+      }
+      catch (TypeConversionException ignore)
+      {
+      }
+      try
+      {
+         cursor.getBooleanContent();
+         fail();
+      }
+      catch (TypeConversionException ignore)
+      {
+      }
+      assertEquals("e", cursor.sibling());
+      assertNull(cursor.getContent());
+      try
+      {
+         cursor.getIntContent();
+         fail();
+      }
+      catch (IllegalStateException ignore)
+      {
+      }
+   }
+
+   public void testLocation() throws Exception
+   {
+      StaxCursorImpl<String> cursor = cursor("<foo>\n<bar/></foo>");
+      assertEquals(LocationCapture.NONE, cursor.getLocationCapture());
+      assertNull(cursor.getLocation());
+      cursor.setLocationCapture(LocationCapture.COMPACT);
+      assertEquals("bar", cursor.child());
+      assertEquals(2, cursor.getLocation().getLineNumber());
+   }
+
+   public void testDeep() throws Exception
+   {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0;i < 20;i++)
+      {
+         sb.append("<a>");
+      }
+      for (int i = 0;i < 20;i++)
+      {
+         sb.append("</a>");
+      }
+      StaxCursor<String> cursor = cursor(sb.toString());
+      int depth = 1;
+      while (cursor.child() != null)
+      {
+         assertEquals(++depth, cursor.getDepth());
+      }
+      assertEquals(20, depth);
+   }
+
+   public void testMissingElement() throws Exception
+   {
+      StaxCursor<String> cursor = cursor("<foo/>");
+      assertNull(cursor.next());
+      assertNull(cursor.child());
+      assertNull(cursor.sibling());
+      assertFalse(cursor.navigate(Axis.FOLLOWING, "bar"));
+      assertEquals("foo", cursor.getName());
+   }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import junit.framework.TestCase;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public class StaxNavigatorFactoryTestCase extends TestCase
+{
+
+   /** . */
+   private static final String DOCUMENT = "<foo><bar>1</bar><juu>2</juu></foo>";
+
+   public void testSources() throws Exception
+   {
+      StaxNavigatorFactory<String> factory = new StaxNavigatorFactory<String>(new Naming.Local());
+      byte[] bytes = DOCUMENT.getBytes("UTF-8");
+      assertNavigation(factory.navigator(new ByteArrayInputStream(bytes)));
+      assertNavigation(factory.navigator(new StringReader(DOCUMENT)));
+      assertNavigation(factory.navigator(bytes));
+      ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 2);
+      buffer.put((byte)'?').put(bytes).flip().position(1);
+      assertNavigation(factory.navigator(buffer));
+      assertEquals(1, buffer.position());
+      ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+      direct.put(bytes).flip();
+      assertNavigation(factory.navigator(direct));
+      File file = File.createTempFile("staxnav", ".xml");
+      try
+      {
+         OutputStream out = new FileOutputStream(file);
+         out.write(bytes);
+         out.close();
+         assertNavigation(factory.navigator(file));
+      }
+      finally
+      {
+         assertTrue(file.delete());
+      }
+   }
+
+   public void testCursorSources() throws Exception
+   {
+      StaxNavigatorFactory<String> factory = new StaxNavigatorFactory<String>(new Naming.Local());
+      byte[] bytes = DOCUMENT.getBytes("UTF-8");
+      assertCursor(factory.cursor(XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(DOCUMENT))));
+      assertCursor(factory.cursor(new ByteArrayInputStream(bytes)));
+      assertCursor(factory.cursor(new StringReader(DOCUMENT)));
+      assertCursor(factory.cursor(bytes));
+      ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 2);
+      buffer.put((byte)'?').put(bytes).flip().position(1);
+      assertCursor(factory.cursor(buffer));
+      assertEquals(1, buffer.position());
+      ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+      direct.put(bytes).flip();
+      assertCursor(factory.cursor(direct));
+      File file = File.createTempFile("staxnav", ".xml");
+      try
+      {
+         OutputStream out = new FileOutputStream(file);
+         out.write(bytes);
+         out.close();
+         assertCursor(factory.cursor(file));
+      }
+      finally
+      {
+         assertTrue(file.delete());
+      }
+   }
+
+   public void testCursor() throws Exception
+   {
+      StaxNavigatorFactory<String> factory = new StaxNavigatorFactory<String>(new Naming.Local());
+      StaxCursor<String> cursor = factory.cursor(new ByteArrayInputStream(DOCUMENT.getBytes("UTF-8")));
+      assertEquals("bar", cursor.child());
+      assertNotNull(cursor.getLocation());
+      factory.setLocationCapture(LocationCapture.NONE);
+      cursor = factory.cursor(new StringReader(DOCUMENT));
+      assertEquals("bar", cursor.child());
+      assertNull(cursor.getLocation());
+   }
+
+   public void testClose() throws Exception
+   {
+      StaxNavigatorFactory<String> factory = new StaxNavigatorFactory<String>(new Naming.Local());
+      StaxNavigator<String> navigator = factory.navigator(new StringReader(DOCUMENT));
+      assertEquals("bar", navigator.child());
+      StaxNavigator<String> fork = navigator.fork();
+      navigator.close();
+      navigator.close();
+      fork.close();
+   }
+
+   public void testNavigatorConfiguration() throws Exception
+   {
+      StaxNavigatorFactory<String> factory = new StaxNavigatorFactory<String>(new Naming.Local());
+      factory.setLocationCapture(LocationCapture.NONE);
+      factory.setContentOnDemand(true);
+      StaxNavigatorImpl<String> navigator = (StaxNavigatorImpl<String>)factory.navigator(DOCUMENT.getBytes("UTF-8"));
+      assertEquals(LocationCapture.NONE, navigator.getLocationCapture());
+      assertTrue(navigator.getContentOnDemand());
+      assertNull(navigator.getLocation());
+   }
+
+   public void testNamespaceAware() throws Exception
+   {
+      String document = "<ns:foo xmlns:ns='urn:ns'><ns:bar>1</ns:bar><juu/></ns:foo>";
+      StaxNavigatorFactory<String> factory = new StaxNavigatorFactory<String>(new Naming.Local());
+      assertFalse(factory.isNamespaceAware());
+      StaxNavigator<String> navigator = factory.navigator(new StringReader(document));
+      assertEquals("foo", navigator.getName());
+      assertEquals("bar", navigator.child());
+      assertEquals("1", navigator.getContent());
+      assertEquals("juu", navigator.sibling());
+      StaxCursor<String> cursor = factory.cursor(new StringReader(document));
+      assertEquals("foo", cursor.getName());
+      assertEquals("bar", cursor.child());
+      factory.setNamespaceAware(true);
+      assertTrue(factory.isNamespaceAware());
+      navigator = factory.navigator(new StringReader(document));
+      assertEquals("bar", navigator.child());
+      assertEquals("urn:ns", navigator.getNamespaceByPrefix("ns"));
+
+      //
+      assertTrue(new StaxNavigatorFactory<QName>(new Naming.Qualified()).isNamespaceAware());
+   }
+
+   public void testCoalescing() throws Exception
+   {
+      StaxNavigatorFactory<String> factory = new StaxNavigatorFactory<String>(new Naming.Local());
+      factory.setCoalescing(true);
+      assertTrue(factory.isCoalescing());
+      StaxNavigator<String> navigator = factory.navigator(new StringReader("<foo>a<![CDATA[b]]>c</foo>"));
+      assertEquals("abc", navigator.getContent());
+   }
+
+   public void testInterning() throws Exception
+   {
+      StaxNavigatorFactory<String> factory = new StaxNavigatorFactory<String>(new Naming.Local());
+      factory.setInterning(false);
+      assertFalse(factory.isInterning());
+      factory.setInterning(true);
+      assertEquals("foo", factory.navigator(new StringReader(DOCUMENT)).getName());
+   }
+
+   public void testExternalEntity() throws Exception
+   {
+      File file = File.createTempFile("staxnav", ".txt");
+      try
+      {
+         OutputStream out = new FileOutputStream(file);
+         out.write("secret".getBytes("UTF-8"));
+         out.close();
+         String document = "<!DOCTYPE foo [<!ENTITY e SYSTEM '" + file.toURI() + "'>]><foo>&e;</foo>";
+         StaxNavigatorFactory<String> factory = new StaxNavigatorFactory<String>(new Naming.Local());
+         assertFalse(factory.isSupportDTD());
+         String content;
+         try
+         {
+            content = factory.navigator(new StringReader(document)).getContent();
+         }
+         catch (Exception e)
+         {
+            content = null;
+         }
+         assertTrue(content == null || !content.contains("secret"));
+      }
+      finally
+      {
+         assertTrue(file.delete());
+      }
+   }
+
+   public void testConcurrentUse() throws Exception
+   {
+      final StaxNavigatorFactory<String> factory = new StaxNavigatorFactory<String>(new Naming.Local());
+      final List<Throwable> failures = new ArrayList<Throwable>();
+      Thread[] threads = new Thread[4];
+      for (int i = 0;i < threads.length;i++)
+      {
+         threads[i] = new Thread()
+         {
+            @Override
+            public void run()
+            {
+               try
+               {
+                  for (int j = 0;j < 100;j++)
+                  {
+                     assertNavigation(factory.navigator(new StringReader(DOCUMENT)));
+                  }
+               }
+               catch (Throwable t)
+               {
+                  synchronized (failures)
+                  {
+                     failures.add(t);
+                  }
+               }
+            }
+         };
+         threads[i].start();
+      }
+      for (Thread thread : threads)
+      {
+         thread.join();
+      }
+      assertEquals(new ArrayList<Throwable>(), failures);
+   }
+
+   public void testNull() throws Exception
+   {
+      StaxNavigatorFactory<String> factory = new StaxNavigatorFactory<String>(new Naming.Local());
+      try
+      {
+         factory.navigator((byte[])null);
+         fail();
+      }
+      catch (NullPointerException ignore)
+      {
+      }
+      try
+      {
+         factory.cursor((ByteBuffer)null);
+         fail();
+      }
+      catch (NullPointerException ignore)
+      {
+      }
+      try
+      {
+         new StaxNavigatorFactory<String>(null);
+         fail();
+      }
+      catch (NullPointerException ignore)
+      {
+      }
+   }
+
+   private static void assertCursor(StaxCursor<String> cursor)
+   {
+      assertEquals("foo", cursor.getName());
+      assertEquals("bar", cursor.child());
+      assertEquals("1", cursor.getContent());
+      assertEquals("juu", cursor.sibling());
+      assertEquals("2", cursor.getContent());
+      assertNull(cursor.next());
+   }
+
+   private static void assertNavigation(StaxNavigator<String> navigator)
+   {
+      assertEquals("foo", navigator.getName());
+      assertEquals("bar", navigator.child());
+      assertEquals("1", navigator.getContent());
+      assertEquals("juu", navigator.sibling());
+      assertEquals("2", navigator.getContent());
+      assertNull(navigator.next());
+   }
+}
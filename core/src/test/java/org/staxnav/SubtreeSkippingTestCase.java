@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+/**
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public class SubtreeSkippingTestCase extends AbstractXMLTestCase
+{
+
+   /** . */
+   private static final String DOCUMENT =
+      "<foo>" +
+         "<bar><juu>1</juu><daa><juu>2</juu></daa></bar>" +
+         "<bar><juu>3</juu></bar>" +
+         "<daa>4</daa>" +
+      "</foo>";
+
+   private StaxNavigatorImpl<String> navigator(boolean contentOnDemand)
+   {
+      StaxNavigatorImpl<String> navigator = (StaxNavigatorImpl<String>)navigator(new Naming.Local(), DOCUMENT);
+      navigator.setSubtreeSkipping(true);
+      navigator.setContentOnDemand(contentOnDemand);
+      return navigator;
+   }
+
+   public void testSibling() throws Exception
+   {
+      testSibling(false);
+   }
+
+   public void testSiblingContentOnDemand() throws Exception
+   {
+      testSibling(true);
+   }
+
+   private void testSibling(boolean contentOnDemand) throws Exception
+   {
+      StaxNavigatorImpl<String> navigator = navigator(contentOnDemand);
+      assertTrue(navigator.getSubtreeSkipping());
+      assertEquals("bar", navigator.child());
+      assertTrue(navigator.sibling("daa"));
+      assertEquals("4", navigator.getContent());
+      assertNull(navigator.next());
+   }
+
+   public void testFailedSibling() throws Exception
+   {
+      StaxNavigatorImpl<String> navigator = navigator(false);
+      assertEquals("bar", navigator.child());
+      assertEquals("juu", navigator.child());
+      assertFalse(navigator.sibling("bar"));
+      assertEquals("juu", navigator.getName());
+
+      // The children of the daa element were skipped
+      assertEquals("daa", navigator.next());
+      assertEquals("bar", navigator.next());
+      assertEquals("juu", navigator.next());
+      assertEquals("3", navigator.getContent());
+   }
+
+   public void testReadSubtree() throws Exception
+   {
+      StaxNavigatorImpl<String> navigator = navigator(false);
+      assertEquals("bar", navigator.child());
+      assertEquals(-1, navigator.descendant("foo"));
+      assertEquals("bar", navigator.getName());
+      assertEquals("bar", navigator.sibling());
+      assertEquals("juu", navigator.child());
+      assertEquals("3", navigator.getContent());
+   }
+
+   public void testNoSkippingWithFork() throws Exception
+   {
+      StaxNavigatorImpl<String> navigator = navigator(false);
+      assertEquals("bar", navigator.child());
+      StaxNavigator<String> fork = navigator.fork();
+      assertTrue(navigator.sibling("daa"));
+      assertEquals("juu", fork.child());
+      assertEquals("daa", fork.sibling());
+      assertEquals("juu", fork.child());
+      assertEquals("2", fork.getContent());
+   }
+
+   public void testNoSkippingWithEagerFork() throws Exception
+   {
+      StaxNavigatorImpl<String> navigator = navigator(false);
+      assertEquals("bar", navigator.child());
+      StringBuilder sb = new StringBuilder();
+      for (StaxNavigator<String> fork : navigator.fork("bar"))
+      {
+         assertEquals("juu", fork.child());
+         sb.append(fork.getContent());
+      }
+      assertEquals("13", sb.toString());
+   }
+
+   public void testSkippingAfterParser() throws Exception
+   {
+      StaxNavigatorImpl<String> navigator = navigator(false);
+      assertEquals("bar", navigator.child());
+      final StringBuilder sb = new StringBuilder();
+      int count = navigator.fork("bar", new Parser<String>()
+      {
+         public void parse(StaxNavigator<String> navigator) throws StaxNavException
+         {
+            assertTrue(navigator.child("juu"));
+            sb.append(navigator.getContent());
+         }
+      });
+      assertEquals(2, count);
+      assertEquals("13", sb.toString());
+      assertTrue(navigator.sibling("daa"));
+   }
+}
@@ -32,14 +32,26 @@ public class TheTestSuite
    public static Test suite()
    {
       TestSuite suite = new TestSuite();
+      suite.addTest(new TestSuite(BytesTestCase.class));
+      suite.addTest(new TestSuite(CharsTestCase.class));
       suite.addTest(new TestSuite(ContentTestCase.class));
       suite.addTest(new TestSuite(EncodedNamingTestCase.class));
       suite.addTest(new TestSuite(GateInTestCase.class));
       suite.addTest(new TestSuite(LocalBrowseTestCase.class));
+      suite.addTest(new TestSuite(LocationTestCase.class));
       suite.addTest(new TestSuite(MappedEnumeratedBrowseTestCase.class));
+      suite.addTest(new TestSuite(MappedFileTestCase.class));
+      suite.addTest(new TestSuite(NameTableTestCase.class));
       suite.addTest(new TestSuite(NamespaceTestCase.class));
+      suite.addTest(new TestSuite(ParallelParserTestCase.class));
+      suite.addTest(new TestSuite(PathQueryTestCase.class));
+      suite.addTest(new TestSuite(PathRouterTestCase.class));
+      suite.addTest(new TestSuite(PipelineTestCase.class));
       suite.addTest(new TestSuite(QualifiedBrowseTestCase.class));
       suite.addTest(new TestSuite(SimpleEnumeratedBrowseTestCase.class));
+      suite.addTest(new TestSuite(StaxCursorTestCase.class));
+      suite.addTest(new TestSuite(StaxNavigatorFactoryTestCase.class));
+      suite.addTest(new TestSuite(SubtreeSkippingTestCase.class));
       return suite;
    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2010 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.staxnav;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+import junit.framework.TestCase;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import java.io.StringReader;
+
+/**
+ * Checks that the Stax2 support of the Woodstox stream gives the same results than the portable support used for a
+ * delegating stream.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ * @version $Revision$
+ */
+public class StreamSupportTestCase extends TestCase
+{
+
+   /** . */
+   private static final String DOCUMENT =
+      "<foo xmlns:ns='urn:ns'>" +
+         "<bar a='1' ns:a='2'><juu>skipped</juu><daa><juu>skipped</juu></daa></bar>" +
+         "<bar a='3'>text<juu>skipped</juu>text</bar>" +
+         "<base64>SGVsbG8=</base64>" +
+         "<hex>48656c6c6f</hex>" +
+         "<mixed>SGVs<juu/>bG8=</mixed>" +
+         "<daa>4</daa>" +
+      "</foo>";
+
+   private XMLStreamReader stream(boolean stax2) throws XMLStreamException
+   {
+      XMLStreamReader stream = new WstxInputFactory().createXMLStreamReader(new StringReader(DOCUMENT));
+      return stax2 ? stream : new StreamReaderDelegate(stream);
+   }
+
+   public void testSelection() throws Exception
+   {
+      assertSame(Stax2StreamSupport.INSTANCE, StreamSupport.get(stream(true)));
+      assertSame(StreamSupport.PORTABLE, StreamSupport.get(stream(false)));
+   }
+
+   public void testSameResults() throws Exception
+   {
+      String expected = "bar 1 2 null|bar 3 null null|base64 Hello|hex Hello|mixed IllegalStateException|daa 4|";
+      assertEquals(expected, trace(true, true));
+      assertEquals(expected, trace(false, true));
+      assertEquals(expected, trace(true, false));
+      assertEquals(expected, trace(false, false));
+   }
+
+   private String trace(boolean stax2, boolean contentOnDemand) throws Exception
+   {
+      StaxNavigatorImpl<String> navigator = new StaxNavigatorImpl<String>(new Naming.Local(), stream(stax2));
+      navigator.setSubtreeSkipping(true);
+      navigator.setContentOnDemand(contentOnDemand);
+      StringBuilder trace = new StringBuilder();
+      for (String name = navigator.child();name != null;name = navigator.sibling())
+      {
+         trace.append(name);
+         if (name.equals("bar"))
+         {
+            trace.append(' ').append(navigator.getAttribute("a"));
+            trace.append(' ').append(navigator.getAttribute(new QName("urn:ns", "a")));
+            trace.append(' ').append(navigator.getAttribute("b"));
+         }
+         else if (name.equals("base64") || name.equals("mixed"))
+         {
+            try
+            {
+               trace.append(' ').append(new String(navigator.getBinaryContent(BinaryEncoding.BASE64), "US-ASCII"));
+            }
+            catch (IllegalStateException e)
+            {
+               trace.append("IllegalStateException");
+            }
+         }
+         else if (name.equals("hex"))
+         {
+            trace.append(' ').append(new String(navigator.getBinaryContent(BinaryEncoding.HEX), "US-ASCII"));
+         }
+         else
+         {
+            trace.append(' ').append(navigator.getContent());
+         }
+         trace.append('|');
+      }
+      return trace.toString();
+   }
+}